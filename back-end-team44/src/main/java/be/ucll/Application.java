@@ -2,8 +2,10 @@ package be.ucll;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
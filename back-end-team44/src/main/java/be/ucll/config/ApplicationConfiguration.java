@@ -1,5 +1,6 @@
 package be.ucll.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -7,29 +8,43 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import be.ucll.repository.UserRepository;
+import be.ucll.service.auth.BoundedPasswordEncoder;
+import be.ucll.service.auth.CalibratedBCryptPasswordEncoder;
+import be.ucll.service.auth.UserPrincipalCache;
 
 @Configuration
 public class ApplicationConfiguration {
     private final UserRepository userRepository;
+    private final UserPrincipalCache userPrincipalCache;
 
-    public ApplicationConfiguration(UserRepository userRepository) {
+    public ApplicationConfiguration(UserRepository userRepository, UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
+        this.userPrincipalCache = userPrincipalCache;
     }
 
-    // defines how to retrieve the user
+    // defines how to retrieve the user for authenticated requests, served from the principal cache
     @Bean
     UserDetailsService userDetailsService() {
-        return user -> userRepository.findByEmail(user);
+        return userPrincipalCache::load;
         // .orElseThrow(() -> new UsernameNotFoundException("User not found"));
     }
 
-    // to encode user pass
-    @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // to encode user pass; the BCrypt cost is calibrated at startup against the hash budget and
+    // hashing runs on its own pool, one thread per core by default
+    @Bean(destroyMethod = "shutdown")
+    BoundedPasswordEncoder passwordEncoder(
+            @Value("${security.password.threads:0}") int threads,
+            @Value("${security.password.queue-capacity:64}") int queueCapacity,
+            @Value("${security.password.timeout-ms:5000}") long timeoutMillis,
+            @Value("${security.password.hash-budget-ms:50}") long hashBudgetMillis,
+            @Value("${security.password.min-cost:10}") int minCost,
+            @Value("${security.password.max-cost:16}") int maxCost) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(CalibratedBCryptPasswordEncoder.calibrate(hashBudgetMillis, minCost, maxCost),
+                poolSize, queueCapacity, timeoutMillis);
     }
 
     @Bean
@@ -39,11 +54,12 @@ public class ApplicationConfiguration {
 
     // sets new strategy to perform auth
     @Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
-        authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        // password checks always read the current user row, never the cache
+        authProvider.setUserDetailsService(userRepository::findByEmail);
+        authProvider.setPasswordEncoder(passwordEncoder);
 
         return authProvider;
     }
@@ -14,6 +14,8 @@ import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import be.ucll.service.auth.JwtService;
 import be.ucll.service.auth.TokenBlackListService; // <-- import your blacklist service
+import be.ucll.service.auth.TokenEpochService;
+import be.ucll.service.auth.VerifiedToken;
 import io.micrometer.common.lang.NonNull;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -28,14 +30,16 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     private JwtService jwtService;
     private UserDetailsService userDetailsService;
     private TokenBlackListService tokenBlacklistService; // <-- add this
+    private TokenEpochService tokenEpochService;
 
     public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService,
             HandlerExceptionResolver handlerExceptionResolver,
-            TokenBlackListService tokenBlacklistService) { // <-- inject
+            TokenBlackListService tokenBlacklistService, TokenEpochService tokenEpochService) { // <-- inject
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
         this.handlerExceptionResolver = handlerExceptionResolver;
         this.tokenBlacklistService = tokenBlacklistService; // <-- assign
+        this.tokenEpochService = tokenEpochService;
     }
 
     @Override
@@ -61,13 +65,22 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 return; // stop further processing
             }
 
-            final String userEmail = jwtService.extractUsername(jwt);
+            // Verified once per request; repeat requests with the same token hit the cache
+            final VerifiedToken token = jwtService.verify(jwt);
+            final String userEmail = token.subject();
+
+            // Tokens issued before the user's last "log out everywhere" (or account deletion)
+            if (!tokenEpochService.isCurrent(token)) {
+                response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                response.getWriter().write("Token has been revoked");
+                return;
+            }
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
             if (userEmail != null && authentication == null) {
                 UserDetails userDetails = userDetailsService.loadUserByUsername(userEmail);
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (jwtService.isTokenValid(token, userDetails)) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                             userDetails, null, userDetails.getAuthorities());
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
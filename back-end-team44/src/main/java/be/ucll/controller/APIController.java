@@ -2,41 +2,107 @@ package be.ucll.controller;
 
 import be.ucll.model.Alarm;
 import be.ucll.model.Batch;
+import be.ucll.model.BatchEndState;
 import be.ucll.model.Severity;
+import be.ucll.service.AlarmCursor;
+import be.ucll.service.AlarmFilter;
 import be.ucll.service.AlarmService;
+import be.ucll.service.AlarmStatistics;
+import be.ucll.service.AlarmStatisticsService;
+import be.ucll.service.AlarmSummary;
+import be.ucll.service.BatchJsonCache;
 import be.ucll.service.CSVService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.io.*;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api")
 public class APIController {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final AlarmService alarmService;
+    private final AlarmStatisticsService alarmStatisticsService;
     private final CSVService csvService;
+    private final BatchJsonCache batchJsonCache;
 
     @Autowired
-    public APIController(AlarmService alarmService, CSVService csvService) {
+    public APIController(AlarmService alarmService, AlarmStatisticsService alarmStatisticsService,
+            CSVService csvService, BatchJsonCache batchJsonCache) {
         this.alarmService = alarmService;
+        this.alarmStatisticsService = alarmStatisticsService;
         this.csvService = csvService;
+        this.batchJsonCache = batchJsonCache;
     }
 
     //GET /api/alarms
+    // Returns one page, newest first. When more alarms match, the X-Next-Cursor header
+    // holds the value to pass as "cursor" for the next page. endDate is inclusive.
     @GetMapping("/alarms")
-    public List<Alarm> getAllAlarms(
+    public ResponseEntity<List<Alarm>> getAllAlarms(
+            @RequestParam(required = false) Integer productionStep,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date endDate,
+            @RequestParam(required = false) Severity severity,
+            @RequestParam(required = false) UUID batchId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AlarmService.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        AlarmFilter filter = alarmFilter(productionStep, startDate, endDate, severity, batchId);
+
+        List<Alarm> alarms = alarmService.getAllAlarms(filter, AlarmCursor.decode(cursor), limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (alarms.size() == limit) {
+            Alarm last = alarms.get(alarms.size() - 1);
+            if (last.getStartDate() != null) {
+                response.header(NEXT_CURSOR_HEADER, AlarmCursor.of(last).encode());
+            }
+        }
+        return response.body(alarms);
+    }
+
+    //GET /api/alarms/summaries
+    // Same parameters and paging as /api/alarms, but each alarm lists only the ids of its batches.
+    @GetMapping("/alarms/summaries")
+    public ResponseEntity<List<AlarmSummary>> getAlarmSummaries(
             @RequestParam(required = false) Integer productionStep,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date startDate,
-            @RequestParam(required = false) Severity severity
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) Date endDate,
+            @RequestParam(required = false) Severity severity,
+            @RequestParam(required = false) UUID batchId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AlarmService.DEFAULT_PAGE_SIZE) int limit
     ) {
-        return alarmService.getAllAlarms(productionStep, startDate, severity);
+        AlarmFilter filter = alarmFilter(productionStep, startDate, endDate, severity, batchId);
+
+        List<AlarmSummary> alarms = alarmService.getAlarmSummaries(filter, AlarmCursor.decode(cursor), limit);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (alarms.size() == limit) {
+            AlarmSummary last = alarms.get(alarms.size() - 1);
+            if (last.startDate() != null) {
+                response.header(NEXT_CURSOR_HEADER, new AlarmCursor(last.startDate(), last.id()).encode());
+            }
+        }
+        return response.body(alarms);
+    }
+
+    private static AlarmFilter alarmFilter(Integer productionStep, Date startDate, Date endDate, Severity severity,
+                                           UUID batchId) {
+        Date endExclusive = endDate == null ? null : new Date(endDate.getTime() + TimeUnit.DAYS.toMillis(1));
+        return new AlarmFilter(productionStep, severity, startDate, endExclusive, batchId);
     }
 
     //GET /api/alarms/{id}
@@ -53,60 +119,28 @@ public class APIController {
 
     //GET /api/alarms/statistics
     @GetMapping("/alarms/statistics")
-    public String getStatistics() {
-        return "No statistics yet.";
+    public AlarmStatistics getStatistics() {
+        return alarmStatisticsService.getStatistics();
     }
 
     //GET /api/batches
+    // Ended batches are written from their cached JSON; only the others are loaded as entities
     @GetMapping("/batches")
-    public List<Batch> getAllBatches() {
-        return alarmService.getAllBatches();
+    public void getAllBatches(HttpServletResponse response) throws IOException {
+        List<BatchEndState> batches = alarmService.getBatchEndStates();
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        batchJsonCache.writeArray(batches, alarmService::getBatchesById, response.getOutputStream());
     }
 
     //GET /api/batches/export
     @Operation(summary = "Export batches to CSV")
-    @ApiResponse(responseCode = "200", description = "CSV file generated successfully")
+    @ApiResponse(responseCode = "200", description = "CSV streamed successfully")
     @GetMapping("/batches/export")
-    public void exportBatchesToCSV(HttpServletResponse response, @RequestParam String format)
-            throws IOException, InterruptedException {
+    public void exportBatchesToCSV(HttpServletResponse response, @RequestParam String format) throws IOException {
         if (format.equals("csv")) {
-            List<Batch> batches = alarmService.getAllBatches();
-
-            // Convert entity → JSON fields expected by Python
-            List<Map<String, Object>> batchMaps = batches.stream().map(batch -> {
-                Map<String, Object> map = new HashMap<>();
-                map.put("batchId", batch.getBatchId());
-                map.put("batchNumber", batch.getBatchNumber());
-                map.put("productionOrderNumber", batch.getProductionOrderNumber());
-                map.put("recipeId", batch.getRecipeId());
-                map.put("plannedStartTime", batch.getPlannedStartTime());
-                map.put("actualStartTime", batch.getActualStartTime());
-                map.put("plannedEndTime", batch.getPlannedEndTime());
-                map.put("actualEndTime", batch.getActualEndTime());
-                map.put("executionStatus", batch.getExecutionStatus());
-                map.put("internalId", batch.getInternalId());
-                map.put("name", batch.getName());
-                return map;
-            }).toList();
-
-            // Generate CSV via Python
-            File csvFile = csvService.generateCSV(batchMaps);
-
-            // Stream CSV to client
-            response.setContentType("text/csv");
+            response.setContentType("text/csv; charset=UTF-8");
             response.setHeader("Content-Disposition", "attachment; filename=\"batches_export.csv\"");
-
-            try (InputStream is = new FileInputStream(csvFile);
-                 OutputStream os = response.getOutputStream()) {
-
-                byte[] buffer = new byte[8192];
-                int len;
-                while ((len = is.read(buffer)) != -1) {
-                    os.write(buffer, 0, len);
-                }
-            }
-
-            csvFile.delete();
+            csvService.exportAllBatches(response.getOutputStream());
         } else {
             response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unsupported format: " + format);
         }
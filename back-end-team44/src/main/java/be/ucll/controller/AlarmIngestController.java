@@ -0,0 +1,39 @@
+package be.ucll.controller;
+
+import be.ucll.service.ingest.AlarmIngestRequest;
+import be.ucll.service.ingest.AlarmIngestService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/alarms/ingest")
+public class AlarmIngestController {
+
+    private final AlarmIngestService ingestService;
+
+    public AlarmIngestController(AlarmIngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    //POST /api/alarms/ingest
+    // Buffers the alarms and returns 202; they are stored shortly after by the background writer.
+    @PostMapping
+    public ResponseEntity<Map<String, Integer>> ingest(@RequestBody List<AlarmIngestRequest> alarms) {
+        try {
+            return ResponseEntity.accepted().body(Map.of("accepted", ingestService.submit(alarms)));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+}
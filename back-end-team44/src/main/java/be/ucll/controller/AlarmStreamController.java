@@ -0,0 +1,32 @@
+package be.ucll.controller;
+
+import be.ucll.service.AlarmStreamService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+@RestController
+@RequestMapping("/api/alarms/stream")
+public class AlarmStreamController {
+
+    private final AlarmStreamService alarmStreamService;
+
+    public AlarmStreamController(AlarmStreamService alarmStreamService) {
+        this.alarmStreamService = alarmStreamService;
+    }
+
+    //GET /api/alarms/stream
+    // Server-sent events. "counts" arrives first with the number of alarms per severity; after
+    // that each "alarms" event carries the changed alarms, removed ids and per-severity deltas.
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> stream() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .header("Cache-Control", "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(alarmStreamService.subscribe());
+    }
+}
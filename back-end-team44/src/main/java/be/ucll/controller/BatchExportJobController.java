@@ -0,0 +1,85 @@
+package be.ucll.controller;
+
+import be.ucll.service.export.BatchExportJob;
+import be.ucll.service.export.BatchExportJobService;
+import be.ucll.service.export.BatchExportRequest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/batches/export/jobs")
+public class BatchExportJobController {
+
+    private final BatchExportJobService exportJobService;
+
+    public BatchExportJobController(BatchExportJobService exportJobService) {
+        this.exportJobService = exportJobService;
+    }
+
+    //POST /api/batches/export/jobs
+    // Starts a background CSV export and returns the job; poll it until status is COMPLETED.
+    // Only the user who started a job can see, download or cancel it; others get 404.
+    @PostMapping
+    public ResponseEntity<?> submit(@AuthenticationPrincipal UserDetails userDetails,
+                                    @RequestBody(required = false) BatchExportRequest request) {
+        BatchExportRequest body = request == null ? new BatchExportRequest() : request;
+        try {
+            BatchExportJob job = exportJobService.submit(userDetails.getUsername(), body.toFilter(), body.toColumns());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/batches/export/jobs/" + job.getId()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body(Map.of("error", "Too many exports running, try again later"));
+        }
+    }
+
+    //GET /api/batches/export/jobs/{jobId}
+    @GetMapping("/{jobId}")
+    public ResponseEntity<BatchExportJob> getJob(@AuthenticationPrincipal UserDetails userDetails,
+                                                 @PathVariable UUID jobId) {
+        return ResponseEntity.of(exportJobService.getJob(userDetails.getUsername(), jobId));
+    }
+
+    //GET /api/batches/export/jobs/{jobId}/file
+    // Gzip-compressed CSV. Range headers are honoured, so large files can be fetched in parts.
+    @GetMapping("/{jobId}/file")
+    public ResponseEntity<Resource> getFile(@AuthenticationPrincipal UserDetails userDetails,
+                                            @PathVariable UUID jobId) {
+        Optional<BatchExportJob> found = exportJobService.getJob(userDetails.getUsername(), jobId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        BatchExportJob job = found.get();
+        if (job.getStatus() != BatchExportJob.Status.COMPLETED) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/gzip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("batches_export_" + job.getId() + ".csv.gz").build().toString())
+                .body(new FileSystemResource(job.getFile()));
+    }
+
+    //DELETE /api/batches/export/jobs/{jobId}
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Void> cancel(@AuthenticationPrincipal UserDetails userDetails, @PathVariable UUID jobId) {
+        return exportJobService.cancel(userDetails.getUsername(), jobId)
+                ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+}
@@ -0,0 +1,35 @@
+package be.ucll.controller;
+
+import be.ucll.service.ingest.BatchIngestResult;
+import be.ucll.service.ingest.BatchIngestService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/batches/ingest")
+public class BatchIngestController {
+
+    private final BatchIngestService ingestService;
+
+    public BatchIngestController(BatchIngestService ingestService) {
+        this.ingestService = ingestService;
+    }
+
+    //POST /api/batches/ingest
+    // Upserts batches on batch_id. The body is read as a stream: one JSON object per line, or CSV
+    // with the export's header row.
+    @PostMapping(consumes = "application/x-ndjson")
+    public BatchIngestResult ingestNdjson(HttpServletRequest request) throws IOException {
+        return ingestService.ingest(request.getInputStream(), BatchIngestService.Format.NDJSON);
+    }
+
+    //POST /api/batches/ingest
+    @PostMapping(consumes = "text/csv")
+    public BatchIngestResult ingestCsv(HttpServletRequest request) throws IOException {
+        return ingestService.ingest(request.getInputStream(), BatchIngestService.Format.CSV);
+    }
+}
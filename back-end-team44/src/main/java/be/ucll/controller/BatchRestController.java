@@ -1,12 +1,26 @@
 package be.ucll.controller;
 
 import be.ucll.model.Batch;
+import be.ucll.service.BatchCursor;
+import be.ucll.service.BatchFilter;
+import be.ucll.service.BatchJsonCache;
+import be.ucll.service.BatchPage;
+import be.ucll.service.BatchSearchHit;
+import be.ucll.service.BatchSearchIndex;
 import be.ucll.service.BatchService;
+import be.ucll.service.BatchSort;
+import be.ucll.service.BatchStats;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -14,17 +28,56 @@ import java.util.UUID;
 public class BatchRestController {
 
     private final BatchService batchService;
+    private final BatchJsonCache batchJsonCache;
+    private final BatchSearchIndex batchSearchIndex;
 
-    public BatchRestController(BatchService batchService) {
+    public BatchRestController(BatchService batchService, BatchJsonCache batchJsonCache,
+                               BatchSearchIndex batchSearchIndex) {
         this.batchService = batchService;
+        this.batchJsonCache = batchJsonCache;
+        this.batchSearchIndex = batchSearchIndex;
+    }
+
+    //GET /api/batches/query
+    // Filtered, sorted page of batches. Pass nextCursor of the response as "cursor" for the next page.
+    // startDate and endDate bound actualStartTime and are both inclusive.
+    @GetMapping("/query")
+    public BatchPage queryBatches(
+            @RequestParam(required = false) String executionStatus,
+            @RequestParam(required = false) String batchNumber,
+            @RequestParam(required = false) String productionOrderNumber,
+            @RequestParam(required = false) String recipeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(defaultValue = "actualStartTime") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + BatchService.DEFAULT_PAGE_SIZE) int limit
+    ) {
+        BatchFilter filter = new BatchFilter(executionStatus, batchNumber, productionOrderNumber, recipeId,
+                startDate == null ? null : startDate.atStartOfDay(),
+                endDate == null ? null : endDate.plusDays(1).atStartOfDay());
+
+        return batchService.queryBatches(filter, BatchSort.fromProperty(sort), "asc".equalsIgnoreCase(direction),
+                BatchCursor.decode(cursor), limit);
+    }
+
+    //GET /api/batches/search?q=
+    // Typeahead over batchNumber, productionOrderNumber and name, best matches first.
+    @GetMapping("/search")
+    public List<BatchSearchHit> searchBatches(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return batchSearchIndex.search(q, limit);
     }
 
     @GetMapping("/{batchId}/parameters")
-    public Batch getBatchParameters(@PathVariable("batchId") UUID batchId) {
-        return batchService.getBatchParameters(batchId);
+    public ResponseEntity<byte[]> getBatchParameters(@PathVariable("batchId") UUID batchId) {
+        Batch batch = batchService.getBatchParameters(batchId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(batchJsonCache.toJson(batch));
     }
     @GetMapping("/dashboard/batch-stats")
-    public String getBatchStats(){
+    public BatchStats getBatchStats(){
         return batchService.getBatchStats();
     }
 }
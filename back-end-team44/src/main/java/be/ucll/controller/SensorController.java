@@ -0,0 +1,86 @@
+package be.ucll.controller;
+
+import be.ucll.service.sensor.SensorReading;
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesKey;
+import be.ucll.service.sensor.SensorSeriesReadings;
+import be.ucll.service.sensor.SensorStatistics;
+import be.ucll.service.sensor.SensorStatisticsService;
+import be.ucll.service.sensor.SensorStore;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/sensors")
+public class SensorController {
+
+    private final SensorStore sensorStore;
+    private final SensorStatisticsService sensorStatisticsService;
+
+    public SensorController(SensorStore sensorStore, SensorStatisticsService sensorStatisticsService) {
+        this.sensorStore = sensorStore;
+        this.sensorStatisticsService = sensorStatisticsService;
+    }
+
+    //GET /api/sensors/readings
+    // Points of every matching series with start <= time < end, the newest "limit" per series.
+    @GetMapping("/readings")
+    public List<SensorSeriesReadings> getReadings(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return sensorStore.query(new SensorSeriesFilter(equipmentName, equipmentType, metric, type), start, end, limit);
+    }
+
+    //GET /api/sensors/latest
+    @GetMapping("/latest")
+    public List<SensorReading> getLatest(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String type
+    ) {
+        return sensorStore.latest(new SensorSeriesFilter(equipmentName, equipmentType, metric, type));
+    }
+
+    //GET /api/sensors/statistics
+    // Count, min, max, mean, standard deviation and percentiles per matching series, from the
+    // summaries kept on ingest: per minute for the last hour, per hour before that. Start and end
+    // are widened to whole buckets.
+    @GetMapping("/statistics")
+    public List<SensorStatistics> getStatistics(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(defaultValue = "0.5,0.9,0.99") double[] quantiles
+    ) {
+        return sensorStatisticsService.statistics(new SensorSeriesFilter(equipmentName, equipmentType, metric, type), start, end, quantiles);
+    }
+
+    //GET /api/sensors/series
+    @GetMapping("/series")
+    public List<SensorSeriesKey> getSeries(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType
+    ) {
+        return sensorStore.series(new SensorSeriesFilter(equipmentName, equipmentType, null, null));
+    }
+
+    //POST /api/sensors/readings
+    @PostMapping("/readings")
+    public Map<String, Integer> writeReadings(@RequestBody List<SensorReading> readings) {
+        return Map.of("written", sensorStore.write(readings));
+    }
+}
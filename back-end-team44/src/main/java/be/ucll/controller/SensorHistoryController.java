@@ -0,0 +1,55 @@
+package be.ucll.controller;
+
+import be.ucll.service.sensor.SensorHistoryStore;
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesReadings;
+import be.ucll.service.sensor.SensorStatistics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sensors/history")
+@ConditionalOnProperty(name = "sensors.history.enabled", havingValue = "true")
+public class SensorHistoryController {
+
+    private final SensorHistoryStore sensorHistoryStore;
+
+    public SensorHistoryController(SensorHistoryStore sensorHistoryStore) {
+        this.sensorHistoryStore = sensorHistoryStore;
+    }
+
+    //GET /api/sensors/history/readings
+    // Like /api/sensors/readings, but read from the on-disk history instead of the recent points.
+    @GetMapping("/readings")
+    public List<SensorSeriesReadings> getReadings(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(defaultValue = "1000") int limit
+    ) {
+        return sensorHistoryStore.query(new SensorSeriesFilter(equipmentName, equipmentType, metric, type), start, end, limit);
+    }
+
+    //GET /api/sensors/history/statistics
+    // Percentiles only when quantiles are given, e.g. quantiles=0.5,0.99; they cost a full scan.
+    @GetMapping("/statistics")
+    public List<SensorStatistics> getStatistics(
+            @RequestParam(required = false) String equipmentName,
+            @RequestParam(required = false) String equipmentType,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant start,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant end,
+            @RequestParam(required = false) double[] quantiles
+    ) {
+        return sensorHistoryStore.statistics(new SensorSeriesFilter(equipmentName, equipmentType, metric, type), start, end,
+                quantiles == null ? new double[0] : quantiles);
+    }
+}
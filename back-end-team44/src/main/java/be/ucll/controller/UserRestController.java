@@ -3,7 +3,6 @@ package be.ucll.controller;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -22,7 +21,6 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import be.ucll.model.User;
-import be.ucll.repository.LoginResponseRepository;
 import be.ucll.repository.UserRepository;
 import be.ucll.service.UserService;
 import be.ucll.service.auth.UserRegisterDto;
@@ -30,8 +28,12 @@ import be.ucll.service.auth.LoginUserDto;
 import be.ucll.service.auth.TokenBlackListService;
 import be.ucll.service.auth.LoginResponse;
 import be.ucll.service.auth.JwtService;
+import be.ucll.service.auth.LoginRateLimiter;
+import be.ucll.service.auth.LoginThrottledException;
+import be.ucll.service.auth.SessionService;
 import be.ucll.service.auth.UpdateProfileDto;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
 @RestController
@@ -42,16 +44,18 @@ public class UserRestController {
     private final UserService userService;
     private final JwtService jwtService;
     private UserRepository userRepository;
-    private LoginResponseRepository loginResponseRepository;
+    private SessionService sessionService;
     @Autowired
     private TokenBlackListService tokenBlacklistService;
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
 
     public UserRestController(UserService userService, JwtService jwtService, UserRepository userRepository,
-            LoginResponseRepository loginResponseRepository) {
+            SessionService sessionService) {
         this.userService = userService;
         this.jwtService = jwtService;
         this.userRepository = userRepository;
-        this.loginResponseRepository = loginResponseRepository;
+        this.sessionService = sessionService;
     }
 
     @GetMapping
@@ -94,18 +98,16 @@ public class UserRestController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> loginUser(@Valid @RequestBody LoginUserDto user) {
+    public ResponseEntity<LoginResponse> loginUser(@Valid @RequestBody LoginUserDto user, HttpServletRequest request) {
         System.out.println("Received POST /auth/login request");
+        // Refuse before any password hashing is done
+        loginRateLimiter.acquire(user.getEmail(), request.getRemoteAddr());
         User authenticatedUser = userService.loginUser(user);
 
-        String jwtToken = jwtService.generateToken(authenticatedUser);
+        String jwtToken = jwtService.generateToken(
+                Map.of(JwtService.EPOCH_CLAIM, authenticatedUser.getTokenEpoch()), authenticatedUser);
 
-        LoginResponse loginResponse = new LoginResponse();
-        loginResponse.setToken(jwtToken);
-        loginResponse.setExpiresIn(jwtService.getExpirationTime());
-        loginResponse.setUser(authenticatedUser);
-        loginResponseRepository.save(loginResponse);
-        user.addLoginResponse(loginResponse);
+        LoginResponse loginResponse = sessionService.create(authenticatedUser, jwtToken, jwtService.getExpirationTime());
         return ResponseEntity.ok(loginResponse);
     }
 
@@ -133,19 +135,7 @@ public class UserRestController {
     public ResponseEntity<?> logout(@RequestBody TokenRequest request) {
         String token = request.getEntity().trim();
 
-        Optional<LoginResponse> loginResponseOpt = loginResponseRepository.findByToken(token);
-
-        if (loginResponseOpt.isPresent()) {
-            LoginResponse loginResponse = loginResponseOpt.get();
-            User user = loginResponse.getUser();
-
-            if (user != null && user.getLoginResponses() != null) {
-                user.getLoginResponses().remove(loginResponse);
-                userRepository.save(user);
-            }
-
-            loginResponseRepository.delete(loginResponse);
-        }
+        sessionService.end(token);
 
         // Blacklist token so it's immediately unusable
         tokenBlacklistService.blacklistToken(token);
@@ -153,6 +143,18 @@ public class UserRestController {
         return ResponseEntity.ok("Logged out successfully!");
     }
 
+    // Revokes every token of the current user, on every node, including the one used for this call
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutEverywhere(@AuthenticationPrincipal UserDetails userDetails) {
+        if (userDetails == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("Not authenticated"));
+        }
+
+        userService.logoutEverywhere(userDetails.getUsername());
+        return ResponseEntity.ok(new SuccessResponse("Logged out on all devices"));
+    }
+
     @PostMapping("/profile")
     public ResponseEntity<?> updateProfile(
             @Valid @RequestBody UpdateProfileDto updateData,
@@ -207,6 +209,15 @@ public class UserRestController {
     private record SuccessResponse(String message) {
     }
 
+    @ExceptionHandler(LoginThrottledException.class)
+    public ResponseEntity<Map<String, String>> handleThrottled(LoginThrottledException ex) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("Error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, String>> handleDomainException(RuntimeException ex, WebRequest request) {
         System.err.println("RuntimeException: " + ex.getMessage());
@@ -1,30 +1,58 @@
 package be.ucll.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import java.util.Date;
 import java.util.List;
 
 @Entity
-@Table(name = "alarms")
+@EntityListeners(AlarmEntityListener.class)
+@NamedEntityGraph(name = Alarm.WITH_BATCHES, attributeNodes = @NamedAttributeNode("batches"))
+@Table(name = "alarms", indexes = {
+        @Index(name = "idx_alarms_start_date_id", columnList = "startDate, id"),
+        @Index(name = "idx_alarms_severity_start_date_id", columnList = "severity, startDate, id"),
+        @Index(name = "idx_alarms_step_start_date_id", columnList = "productionStep, startDate, id")
+})
 public class Alarm {
+    public static final String WITH_BATCHES = "Alarm.withBatches";
+
+    public static final String ID_SEQUENCE = "alarms_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled sequence ids: one round trip per 50 alarms, and unlike IDENTITY the inserts can be batched
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private int productionStep;
 
     private Date startDate; //When the alarm was triggered.
 
+    // Repeats folded into this alarm at ingestion; startDate is the first, lastOccurrence the last
+    @ColumnDefault("1")
+    @Column(nullable = false)
+    private int occurrenceCount = 1;
+
+    private Date lastOccurrence;
+
     @NotNull
     @Enumerated(EnumType.STRING)
     private Severity severity;
 
+    // Collections of a whole page of alarms are loaded together, one IN query per 100 alarms
     @OneToMany
+    @BatchSize(size = 100)
     private List<Batch> batches;
 
+    @Transient
+    private Severity loadedSeverity;
+
     protected Alarm() {}
 
     public Alarm(int productionStep, Date startDate, Severity severity, List<Batch> batches) {
@@ -58,6 +86,22 @@ public class Alarm {
         this.startDate = startDate;
     }
 
+    public int getOccurrenceCount() {
+        return occurrenceCount;
+    }
+
+    public void setOccurrenceCount(int occurrenceCount) {
+        this.occurrenceCount = occurrenceCount;
+    }
+
+    public Date getLastOccurrence() {
+        return lastOccurrence != null ? lastOccurrence : startDate;
+    }
+
+    public void setLastOccurrence(Date lastOccurrence) {
+        this.lastOccurrence = lastOccurrence;
+    }
+
     public Severity getSeverity() {
         return severity;
     }
@@ -73,4 +117,13 @@ public class Alarm {
     public void setBatches(List<Batch> batches) {
         this.batches = batches;
     }
+
+    @JsonIgnore
+    Severity getLoadedSeverity() {
+        return loadedSeverity;
+    }
+
+    void setLoadedSeverity(Severity loadedSeverity) {
+        this.loadedSeverity = loadedSeverity;
+    }
 }
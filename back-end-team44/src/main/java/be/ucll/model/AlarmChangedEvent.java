@@ -0,0 +1,11 @@
+package be.ucll.model;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// Published when an alarm is inserted (before == null), updated, or deleted (after == null).
+// batchIds is null when the alarm's batches were not loaded.
+public record AlarmChangedEvent(Long id, int productionStep, Date startDate, Date lastOccurrence, int occurrenceCount,
+                                Severity before, Severity after, List<UUID> batchIds) {
+}
@@ -0,0 +1,61 @@
+package be.ucll.model;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.UUID;
+
+// Turns JPA lifecycle callbacks on Alarm into AlarmChangedEvents. The severity as loaded is kept
+// on the entity so an update can report what it changed from.
+public class AlarmEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public AlarmEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    void onLoad(Alarm alarm) {
+        alarm.setLoadedSeverity(alarm.getSeverity());
+    }
+
+    @PostPersist
+    void onPersist(Alarm alarm) {
+        publish(alarm, null, alarm.getSeverity());
+    }
+
+    @PostUpdate
+    void onUpdate(Alarm alarm) {
+        publish(alarm, alarm.getLoadedSeverity(), alarm.getSeverity());
+    }
+
+    @PostRemove
+    void onRemove(Alarm alarm) {
+        Severity before = alarm.getLoadedSeverity() != null ? alarm.getLoadedSeverity() : alarm.getSeverity();
+        publish(alarm, before, null);
+    }
+
+    private void publish(Alarm alarm, Severity before, Severity after) {
+        alarm.setLoadedSeverity(after);
+        eventPublisher.publishEvent(new AlarmChangedEvent(alarm.getId(), alarm.getProductionStep(),
+                alarm.getStartDate(), alarm.getLastOccurrence(), alarm.getOccurrenceCount(), before, after,
+                batchIds(alarm)));
+    }
+
+    // Never loads the collection; this runs during flush
+    private static List<UUID> batchIds(Alarm alarm) {
+        if (alarm.getBatches() == null) {
+            return List.of();
+        }
+        if (!Hibernate.isInitialized(alarm.getBatches())) {
+            return null;
+        }
+        return alarm.getBatches().stream().map(Batch::getBatchId).toList();
+    }
+}
@@ -1,11 +1,16 @@
 package be.ucll.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "batches")
+@Table(name = "batches", indexes = {
+        @Index(name = "idx_batches_actual_start_time", columnList = "actual_start_time, batch_id"),
+        @Index(name = "idx_batches_status_actual_start_time", columnList = "execution_status, actual_start_time, batch_id")
+})
+@EntityListeners(BatchEntityListener.class)
 public class Batch {
 
     @Id
@@ -43,6 +48,10 @@ public class Batch {
     @Column(name = "name")
     private String name;
 
+    // State as last read from or written to the database, see BatchEntityListener
+    @Transient
+    private BatchSnapshot loadedState;
+
     protected Batch() {}
 
     public Batch(String batchNumber, String productionOrderNumber, String recipeId, LocalDateTime plannedStartTime, LocalDateTime actualStartTime, LocalDateTime plannedEndTime, LocalDateTime actualEndTime, String executionStatus, Long internalId, String name) {
@@ -55,7 +64,7 @@ public class Batch {
         this.actualEndTime = actualEndTime;
         this.executionStatus = executionStatus;
         this.internalId = internalId;
-        this.name = name;
+        setName(name);
     }
 
     public UUID getBatchId() {
@@ -139,11 +148,47 @@ public class Batch {
     }
 
     public String getName() {
-        // Normalize spaces to satisfy existing expectations in tests
-        return name == null ? null : name.replaceAll("\\s+", "");
+        return name;
     }
 
+    // Names are stored without whitespace, so reads need no work
     public void setName(String name) {
-        this.name = name;
+        this.name = stripWhitespace(name);
+    }
+
+    // Rows written before names were normalised on write; saved back normalised on their next update
+    @PostLoad
+    void normaliseName() {
+        String normalised = stripWhitespace(name);
+        if (normalised != null && normalised.length() != name.length()) {
+            name = normalised;
+        }
+    }
+
+    private static String stripWhitespace(String value) {
+        if (value == null) {
+            return null;
+        }
+        StringBuilder stripped = null;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isWhitespace(c)) {
+                if (stripped == null) {
+                    stripped = new StringBuilder(value.length()).append(value, 0, i);
+                }
+            } else if (stripped != null) {
+                stripped.append(c);
+            }
+        }
+        return stripped == null ? value : stripped.toString();
+    }
+
+    @JsonIgnore
+    BatchSnapshot getLoadedState() {
+        return loadedState;
+    }
+
+    void setLoadedState(BatchSnapshot loadedState) {
+        this.loadedState = loadedState;
     }
 }
@@ -0,0 +1,5 @@
+package be.ucll.model;
+
+// Published when a batch is inserted (before == null), updated, or deleted (after == null).
+public record BatchChangedEvent(BatchSnapshot before, BatchSnapshot after) {
+}
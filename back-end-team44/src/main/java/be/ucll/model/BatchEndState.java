@@ -0,0 +1,8 @@
+package be.ucll.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Id and end state of a batch: enough to tell whether its cached JSON can be used.
+public record BatchEndState(UUID batchId, String executionStatus, LocalDateTime actualEndTime) {
+}
@@ -0,0 +1,44 @@
+package be.ucll.model;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Turns JPA lifecycle callbacks on Batch into BatchChangedEvents. The state as loaded is kept
+// on the entity so an update can report what it changed from.
+public class BatchEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BatchEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    void onLoad(Batch batch) {
+        batch.setLoadedState(BatchSnapshot.of(batch));
+    }
+
+    @PostPersist
+    void onPersist(Batch batch) {
+        publish(batch, null, BatchSnapshot.of(batch));
+    }
+
+    @PostUpdate
+    void onUpdate(Batch batch) {
+        publish(batch, batch.getLoadedState(), BatchSnapshot.of(batch));
+    }
+
+    @PostRemove
+    void onRemove(Batch batch) {
+        BatchSnapshot before = batch.getLoadedState() != null ? batch.getLoadedState() : BatchSnapshot.of(batch);
+        eventPublisher.publishEvent(new BatchChangedEvent(before, null));
+    }
+
+    private void publish(Batch batch, BatchSnapshot before, BatchSnapshot after) {
+        batch.setLoadedState(after);
+        eventPublisher.publishEvent(new BatchChangedEvent(before, after));
+    }
+}
@@ -0,0 +1,14 @@
+package be.ucll.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Immutable copy of the batch fields that derived views (KPIs, indexes, caches) depend on.
+public record BatchSnapshot(UUID batchId, String executionStatus, LocalDateTime actualStartTime,
+        LocalDateTime actualEndTime, String batchNumber, String productionOrderNumber, String name) {
+
+    public static BatchSnapshot of(Batch batch) {
+        return new BatchSnapshot(batch.getBatchId(), batch.getExecutionStatus(), batch.getActualStartTime(),
+                batch.getActualEndTime(), batch.getBatchNumber(), batch.getProductionOrderNumber(), batch.getName());
+    }
+}
@@ -10,6 +10,7 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import be.ucll.service.auth.LoginResponse;
 
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
@@ -19,12 +20,13 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Email;
 
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_email", columnList = "email"))
 @Entity
 public class User implements UserDetails {
 
@@ -44,6 +46,12 @@ public class User implements UserDetails {
     private String password;
 
     private String preferredName;
+
+    // Bumped to revoke every token issued to this user; tokens carry the epoch they were issued under
+    @JsonIgnore
+    @ColumnDefault("0")
+    @Column(name = "token_epoch", nullable = false)
+    private long tokenEpoch;
     
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<LoginResponse> loginResponses = new ArrayList<>();
@@ -102,6 +110,14 @@ public class User implements UserDetails {
         this.password = password == null ? null : password.trim();
     }
 
+    public long getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public void setTokenEpoch(long tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+
     public String getPreferredName() {
         return preferredName;
     }
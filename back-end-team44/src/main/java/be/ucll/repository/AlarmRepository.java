@@ -1,10 +1,39 @@
 package be.ucll.repository;
 
 import be.ucll.model.Alarm;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
-public interface AlarmRepository extends JpaRepository<Alarm, Long> {
+public interface AlarmRepository extends JpaRepository<Alarm, Long>, JpaSpecificationExecutor<Alarm> {
+    @EntityGraph(Alarm.WITH_BATCHES)
     Alarm findAlarmById(Long id);
+
+    // Rows of [Long alarmId, UUID batchId]
+    @Query("select a.id, b.batchId from Alarm a join a.batches b where a.id in :alarmIds")
+    List<Object[]> findBatchIdsByAlarmIds(@Param("alarmIds") Collection<Long> alarmIds);
+
+    // Rows of [Severity, Long]
+    @Query("select a.severity, count(a) from Alarm a group by a.severity")
+    List<Object[]> countBySeverity();
+
+    // Rows of [Integer, Long]
+    @Query("select a.productionStep, count(a) from Alarm a group by a.productionStep order by a.productionStep")
+    List<Object[]> countByProductionStep();
+
+    // Rows of [Timestamp, Long]
+    @Query(value = "SELECT date_trunc('hour', start_date) AS bucket, COUNT(*) FROM alarms "
+            + "WHERE start_date >= :from GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> countByHourSince(@Param("from") LocalDateTime from);
+
+    // Rows of [Timestamp, Long]
+    @Query(value = "SELECT date_trunc('day', start_date) AS bucket, COUNT(*) FROM alarms "
+            + "WHERE start_date >= :from GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> countByDaySince(@Param("from") LocalDateTime from);
 }
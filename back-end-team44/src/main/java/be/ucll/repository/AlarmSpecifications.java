@@ -0,0 +1,68 @@
+package be.ucll.repository;
+
+import be.ucll.model.Alarm;
+import be.ucll.model.Severity;
+import jakarta.persistence.criteria.Join;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Date;
+import java.util.UUID;
+
+// Composable filters for alarm queries; each one returns null when its argument is absent
+// so callers can chain them with Specification.where(..).and(..) without extra checks.
+public final class AlarmSpecifications {
+
+    private AlarmSpecifications() {
+    }
+
+    public static Specification<Alarm> hasProductionStep(Integer productionStep) {
+        if (productionStep == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("productionStep"), productionStep);
+    }
+
+    public static Specification<Alarm> hasSeverity(Severity severity) {
+        if (severity == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("severity"), severity);
+    }
+
+    public static Specification<Alarm> startedFrom(Date from) {
+        if (from == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("startDate"), from);
+    }
+
+    public static Specification<Alarm> startedBefore(Date to) {
+        if (to == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThan(root.get("startDate"), to);
+    }
+
+    public static Specification<Alarm> hasBatch(UUID batchId) {
+        if (batchId == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Join<Object, Object> batches = root.join("batches");
+            return cb.equal(batches.get("batchId"), batchId);
+        };
+    }
+
+    // Keyset (seek) predicate for the (startDate desc, id desc) ordering:
+    // only rows strictly after the last row of the previous page.
+    public static Specification<Alarm> after(Date startDate, Long id) {
+        if (startDate == null || id == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("startDate"), startDate),
+                cb.and(
+                        cb.equal(root.get("startDate"), startDate),
+                        cb.lessThan(root.get("id"), id)));
+    }
+}
@@ -1,9 +1,47 @@
 package be.ucll.repository;
 
 import be.ucll.model.Batch;
+import be.ucll.model.BatchEndState;
+import be.ucll.model.BatchSnapshot;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface BatchRepository extends JpaRepository<Batch, UUID> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface BatchRepository extends JpaRepository<Batch, UUID>, JpaSpecificationExecutor<Batch> {
+
+    // Planner statistics from PostgreSQL; -1 (or null) when the table was never analyzed.
+    @Query(value = "SELECT CAST(reltuples AS BIGINT) FROM pg_class WHERE relname = 'batches'", nativeQuery = true)
+    Long estimateRowCount();
+
+    // Ids and end state of all batches, without hydrating the entities
+    @Query("select new be.ucll.model.BatchEndState(b.batchId, b.executionStatus, b.actualEndTime) from Batch b")
+    List<BatchEndState> findEndStates();
+
+    // Forward-only scan of all batches; must be consumed inside a transaction.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select b from Batch b")
+    Stream<Batch> streamAll();
+
+    @Query("select new be.ucll.model.BatchSnapshot(b.batchId, b.executionStatus, b.actualStartTime, b.actualEndTime, "
+            + "b.batchNumber, b.productionOrderNumber, b.name) "
+            + "from Batch b where b.batchId in :batchIds")
+    List<BatchSnapshot> findSnapshotsByIds(@Param("batchIds") Collection<UUID> batchIds);
+
+    // Forward-only scan of the snapshot columns; must be consumed inside a transaction.
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "1000"), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("select new be.ucll.model.BatchSnapshot(b.batchId, b.executionStatus, b.actualStartTime, b.actualEndTime, "
+            + "b.batchNumber, b.productionOrderNumber, b.name) "
+            + "from Batch b")
+    Stream<BatchSnapshot> streamSnapshots();
 }
@@ -0,0 +1,105 @@
+package be.ucll.repository;
+
+import be.ucll.model.Batch;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Composable filters for batch queries; each one returns null when its argument is absent.
+public final class BatchSpecifications {
+
+    private BatchSpecifications() {
+    }
+
+    public static Specification<Batch> hasExecutionStatus(String executionStatus) {
+        if (executionStatus == null || executionStatus.isBlank()) {
+            return null;
+        }
+        return (root, query, cb) -> cb.equal(root.get("executionStatus"), executionStatus);
+    }
+
+    public static Specification<Batch> batchNumberContains(String batchNumber) {
+        return containsIgnoreCase("batchNumber", batchNumber);
+    }
+
+    public static Specification<Batch> productionOrderNumberContains(String productionOrderNumber) {
+        return containsIgnoreCase("productionOrderNumber", productionOrderNumber);
+    }
+
+    public static Specification<Batch> recipeIdContains(String recipeId) {
+        return containsIgnoreCase("recipeId", recipeId);
+    }
+
+    public static Specification<Batch> startedFrom(LocalDateTime from) {
+        if (from == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("actualStartTime"), from);
+    }
+
+    public static Specification<Batch> startedBefore(LocalDateTime to) {
+        if (to == null) {
+            return null;
+        }
+        return (root, query, cb) -> cb.lessThan(root.get("actualStartTime"), to);
+    }
+
+    // Keyset predicate for an ordering on (property, batchId) where nulls sort as the largest
+    // value (PostgreSQL's default: NULLS LAST ascending, NULLS FIRST descending).
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Batch> after(String property, Comparable value, UUID batchId, boolean ascending) {
+        if (batchId == null) {
+            return null;
+        }
+        return (root, query, cb) -> {
+            Expression<Comparable> column = root.get(property);
+            Path<UUID> id = root.get("batchId");
+            if (ascending) {
+                if (value == null) {
+                    return cb.and(cb.isNull(column), cb.greaterThan(id, batchId));
+                }
+                return cb.or(
+                        cb.greaterThan(column, value),
+                        cb.isNull(column),
+                        cb.and(cb.equal(column, value), cb.greaterThan(id, batchId)));
+            }
+            if (value == null) {
+                return cb.or(
+                        cb.isNotNull(column),
+                        cb.and(cb.isNull(column), cb.lessThan(id, batchId)));
+            }
+            return cb.or(
+                    cb.lessThan(column, value),
+                    cb.and(cb.equal(column, value), cb.lessThan(id, batchId)));
+        };
+    }
+
+    // Ordering that matches after(..): nulls last ascending, nulls first descending, batchId as tie-breaker.
+    // Spring Data's Sort cannot carry null precedence into criteria queries, so it is applied here.
+    public static Specification<Batch> orderedBy(String property, boolean ascending) {
+        return (root, query, cb) -> {
+            HibernateCriteriaBuilder hcb = (HibernateCriteriaBuilder) cb;
+            if (ascending) {
+                query.orderBy(hcb.asc(root.get(property), false), hcb.asc(root.get("batchId")));
+            } else {
+                query.orderBy(hcb.desc(root.get(property), true), hcb.desc(root.get("batchId")));
+            }
+            return null;
+        };
+    }
+
+    private static Specification<Batch> containsIgnoreCase(String property, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String pattern = "%" + value.trim().toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get(property)), pattern, '\\');
+    }
+}
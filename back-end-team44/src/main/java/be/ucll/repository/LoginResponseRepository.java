@@ -1,7 +1,15 @@
 package be.ucll.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.Optional;
 
 import be.ucll.service.auth.LoginResponse;
@@ -9,7 +17,20 @@ import java.util.List;
 
 @Repository
 public interface LoginResponseRepository extends JpaRepository<LoginResponse, Long> {
-    Optional<LoginResponse> findByToken(String token);
+    Optional<LoginResponse> findByTokenHash(String tokenHash);
+
+    @Transactional
+    @Modifying
+    @Query("delete from LoginResponse l where l.tokenHash = :tokenHash")
+    int deleteByTokenHash(@Param("tokenHash") String tokenHash);
+
+    // Rows written before token_hash/expires_at existed have both null; they can never be looked up
+    // again, so the sweep removes them along with the expired ones.
+    @Query("select l.id from LoginResponse l where l.expiresAt is null or l.expiresAt < :now order by l.expiresAt")
+    List<Long> findExpiredIds(@Param("now") Instant now, Pageable page);
 
-    void deleteByToken(String token);
+    @Transactional
+    @Modifying
+    @Query("delete from LoginResponse l where l.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -1,6 +1,10 @@
 package be.ucll.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import be.ucll.model.User;
 import be.ucll.service.auth.LoginResponse;
@@ -14,4 +18,12 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     public Optional<User> findByName(String name);
 
+    @Query("select u.tokenEpoch from User u where u.email = :email")
+    Long findTokenEpochByEmail(@Param("email") String email);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update User u set u.tokenEpoch = u.tokenEpoch + 1 where u.email = :email")
+    int incrementTokenEpoch(@Param("email") String email);
+
 }
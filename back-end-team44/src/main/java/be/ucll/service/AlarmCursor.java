@@ -0,0 +1,34 @@
+package be.ucll.service;
+
+import be.ucll.model.Alarm;
+
+import java.util.Date;
+
+// Position of the last alarm on a page, encoded as "<startDate epoch millis>_<id>".
+public record AlarmCursor(Date startDate, Long id) {
+
+    public static AlarmCursor of(Alarm alarm) {
+        return new AlarmCursor(alarm.getStartDate(), alarm.getId());
+    }
+
+    public static AlarmCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        int separator = cursor.indexOf('_');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("Invalid alarm cursor: " + cursor);
+        }
+        try {
+            long millis = Long.parseLong(cursor.substring(0, separator));
+            long id = Long.parseLong(cursor.substring(separator + 1));
+            return new AlarmCursor(new Date(millis), id);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid alarm cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        return startDate.getTime() + "_" + id;
+    }
+}
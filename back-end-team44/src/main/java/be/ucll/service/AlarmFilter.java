@@ -0,0 +1,14 @@
+package be.ucll.service;
+
+import be.ucll.model.Severity;
+
+import java.util.Date;
+import java.util.UUID;
+
+// Optional filters for alarm listings; null fields are ignored.
+public record AlarmFilter(Integer productionStep, Severity severity, Date startDate, Date endDate, UUID batchId) {
+
+    public static AlarmFilter none() {
+        return new AlarmFilter(null, null, null, null, null);
+    }
+}
@@ -2,18 +2,30 @@ package be.ucll.service;
 
 import be.ucll.model.Alarm;
 import be.ucll.model.Batch;
-import be.ucll.model.Severity;
+import be.ucll.model.BatchEndState;
 import be.ucll.repository.AlarmRepository;
 import be.ucll.repository.BatchRepository;
 
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
-import java.util.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import static be.ucll.repository.AlarmSpecifications.*;
+
 @Service
 public class AlarmService {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("startDate"), Sort.Order.desc("id"));
+
     private final AlarmRepository alarmRepository;
     private final BatchService batchService;
     private final BatchRepository batchRepository;
@@ -37,17 +49,47 @@ public class AlarmService {
                 .orElseThrow(() -> new RuntimeException("Batch with id " + batchId + " does not exist!"));
     }
 
-    public List<Alarm> getAllAlarms(Integer productionStep, Date startDate, Severity severity) {
-        List<Alarm> alarms = alarmRepository.findAll();
+    // Newest alarms first, one page at a time. Pass the cursor of the last alarm of the
+    // previous page to continue; the database seeks on (startDate, id) instead of skipping rows.
+    // Batches are not fetched here; serialising them loads all collections of the page in one batch.
+    public List<Alarm> getAllAlarms(AlarmFilter filter, AlarmCursor cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
 
+        Specification<Alarm> spec = Specification.where(hasProductionStep(filter.productionStep()))
+                .and(hasSeverity(filter.severity()))
+                .and(startedFrom(filter.startDate()))
+                .and(startedBefore(filter.endDate()))
+                .and(hasBatch(filter.batchId()));
+        if (cursor != null) {
+            spec = spec.and(after(cursor.startDate(), cursor.id()));
+        }
+
+        return alarmRepository.findBy(spec, query -> query.sortBy(NEWEST_FIRST).limit(limit).all());
+    }
+
+    // Same page as getAllAlarms, with batch ids instead of batches: always two queries.
+    public List<AlarmSummary> getAlarmSummaries(AlarmFilter filter, AlarmCursor cursor, int limit) {
+        List<Alarm> alarms = getAllAlarms(filter, cursor, limit);
+        if (alarms.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, List<UUID>> batchIds = new HashMap<>();
+        for (Object[] row : alarmRepository.findBatchIdsByAlarmIds(alarms.stream().map(Alarm::getId).toList())) {
+            batchIds.computeIfAbsent((Long) row[0], id -> new ArrayList<>()).add((UUID) row[1]);
+        }
         return alarms.stream()
-                .filter(a -> productionStep == null || a.getProductionStep() == productionStep)
-                .filter(a -> startDate == null || !a.getStartDate().before(startDate))
-                .filter(a -> severity == null || a.getSeverity() == severity)
+                .map(alarm -> AlarmSummary.of(alarm, batchIds.getOrDefault(alarm.getId(), List.of())))
                 .toList();
     }
 
-    public List<Batch> getAllBatches() {
-        return batchRepository.findAll();
+    public List<BatchEndState> getBatchEndStates() {
+        return batchRepository.findEndStates();
+    }
+
+    public List<Batch> getBatchesById(Collection<UUID> batchIds) {
+        return batchRepository.findAllById(batchIds);
     }
 }
@@ -0,0 +1,22 @@
+package be.ucll.service;
+
+import be.ucll.model.Severity;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+// Dashboard aggregates over all alarms. "active" counts every alarm that is not Info.
+public record AlarmStatistics(
+        long total,
+        long active,
+        Map<Severity, Long> bySeverity,
+        Map<Integer, Long> byProductionStep,
+        List<TimeBucket> lastDayByHour,
+        List<TimeBucket> lastMonthByDay,
+        Instant computedAt) {
+
+    public record TimeBucket(LocalDateTime start, long count) {
+    }
+}
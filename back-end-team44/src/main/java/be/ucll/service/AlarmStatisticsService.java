@@ -0,0 +1,111 @@
+package be.ucll.service;
+
+import be.ucll.model.Severity;
+import be.ucll.repository.AlarmRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Serves alarm statistics from a short-lived snapshot. The snapshot is recomputed with GROUP BY
+// queries in the background while the dashboard keeps asking for it, and on demand once it is
+// older than the TTL, so a request costs at most one round of aggregate queries.
+@Service
+public class AlarmStatisticsService {
+
+    // Stop refreshing in the background when nobody has asked for a while.
+    private static final Duration IDLE_AFTER = Duration.ofMinutes(5);
+
+    private final AlarmRepository alarmRepository;
+    private final Duration ttl;
+
+    private volatile AlarmStatistics snapshot;
+    private volatile Instant lastRequested = Instant.EPOCH;
+
+    public AlarmStatisticsService(AlarmRepository alarmRepository,
+            @Value("${alarms.statistics.ttl-ms:30000}") long ttlMillis) {
+        this.alarmRepository = alarmRepository;
+        this.ttl = Duration.ofMillis(ttlMillis);
+    }
+
+    public AlarmStatistics getStatistics() {
+        lastRequested = Instant.now();
+        AlarmStatistics current = snapshot;
+        if (current != null && !isExpired(current)) {
+            return current;
+        }
+        synchronized (this) {
+            // Another request may have refreshed while we waited.
+            current = snapshot;
+            if (current == null || isExpired(current)) {
+                current = compute();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alarms.statistics.refresh-interval-ms:20000}")
+    public void refresh() {
+        if (Duration.between(lastRequested, Instant.now()).compareTo(IDLE_AFTER) > 0) {
+            return;
+        }
+        AlarmStatistics fresh = compute();
+        synchronized (this) {
+            snapshot = fresh;
+        }
+    }
+
+    private boolean isExpired(AlarmStatistics statistics) {
+        return statistics.computedAt().plus(ttl).isBefore(Instant.now());
+    }
+
+    private AlarmStatistics compute() {
+        Map<Severity, Long> bySeverity = new EnumMap<>(Severity.class);
+        for (Severity severity : Severity.values()) {
+            bySeverity.put(severity, 0L);
+        }
+        long total = 0;
+        for (Object[] row : alarmRepository.countBySeverity()) {
+            long count = ((Number) row[1]).longValue();
+            bySeverity.put((Severity) row[0], count);
+            total += count;
+        }
+
+        Map<Integer, Long> byProductionStep = new LinkedHashMap<>();
+        for (Object[] row : alarmRepository.countByProductionStep()) {
+            byProductionStep.put((Integer) row[0], ((Number) row[1]).longValue());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<AlarmStatistics.TimeBucket> lastDayByHour = toTimeBuckets(
+                alarmRepository.countByHourSince(now.truncatedTo(ChronoUnit.HOURS).minusHours(23)));
+        List<AlarmStatistics.TimeBucket> lastMonthByDay = toTimeBuckets(
+                alarmRepository.countByDaySince(now.truncatedTo(ChronoUnit.DAYS).minusDays(29)));
+
+        return new AlarmStatistics(total, total - bySeverity.get(Severity.Info), bySeverity, byProductionStep,
+                lastDayByHour, lastMonthByDay, Instant.now());
+    }
+
+    private static List<AlarmStatistics.TimeBucket> toTimeBuckets(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> new AlarmStatistics.TimeBucket(toLocalDateTime(row[0]), ((Number) row[1]).longValue()))
+                .toList();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+}
@@ -0,0 +1,226 @@
+package be.ucll.service;
+
+import be.ucll.model.AlarmChangedEvent;
+import be.ucll.model.Severity;
+import be.ucll.repository.AlarmRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Pushes alarm changes to dashboards as server-sent events. Changes are collected for a short
+// interval and each interval becomes one event, encoded once and handed to every subscriber as
+// the same bytes. Every subscriber has a small queue of pending events; one that falls so far
+// behind that its queue fills is disconnected, and the browser reconnects and starts from the
+// counts again. Subscribers get the current count per severity on connect and deltas afterwards.
+@Service
+public class AlarmStreamService {
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final AlarmRepository alarmRepository;
+    private final ObjectMapper objectMapper;
+    private final int queueSize;
+    private final long timeoutMillis;
+    private final ExecutorService senders;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<Severity, AtomicLong> counts = new EnumMap<>(Severity.class);
+    private final AtomicLong eventIds = new AtomicLong();
+
+    // Guarded by this
+    private final Map<Long, AlarmSummary> pendingAlarms = new LinkedHashMap<>();
+    private final List<Long> pendingRemoved = new ArrayList<>();
+    private final Map<Severity, Long> pendingDeltas = new EnumMap<>(Severity.class);
+
+    @Autowired
+    public AlarmStreamService(AlarmRepository alarmRepository, ObjectMapper objectMapper,
+                              @Value("${alarms.stream.queue-size:64}") int queueSize,
+                              @Value("${alarms.stream.timeout-ms:1800000}") long timeoutMillis,
+                              @Value("${alarms.stream.sender-threads:2}") int senderThreads) {
+        this(alarmRepository, objectMapper, queueSize, timeoutMillis, senderPool(senderThreads));
+    }
+
+    public AlarmStreamService(AlarmRepository alarmRepository, ObjectMapper objectMapper, int queueSize,
+                              long timeoutMillis, ExecutorService senders) {
+        this.alarmRepository = alarmRepository;
+        this.objectMapper = objectMapper;
+        this.queueSize = queueSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = senders;
+        for (Severity severity : Severity.values()) {
+            counts.put(severity, new AtomicLong());
+        }
+    }
+
+    private static ExecutorService senderPool(int senderThreads) {
+        AtomicInteger threads = new AtomicInteger();
+        return Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "alarm-stream-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        for (Object[] row : alarmRepository.countBySeverity()) {
+            counts.get((Severity) row[0]).set(((Number) row[1]).longValue());
+        }
+    }
+
+    public ResponseBodyEmitter subscribe() {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(error -> subscribers.remove(subscriber));
+
+        Map<Severity, Long> current = new EnumMap<>(Severity.class);
+        counts.forEach((severity, count) -> current.put(severity, count.get()));
+        subscriber.offer(frame("retry: 3000\nevent: counts\n", current));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlarmChanged(AlarmChangedEvent event) {
+        synchronized (this) {
+            if (event.before() != null) {
+                counts.get(event.before()).decrementAndGet();
+                pendingDeltas.merge(event.before(), -1L, Long::sum);
+            }
+            if (event.after() != null) {
+                counts.get(event.after()).incrementAndGet();
+                pendingDeltas.merge(event.after(), 1L, Long::sum);
+                pendingAlarms.put(event.id(), new AlarmSummary(event.id(), event.productionStep(),
+                        event.startDate(), event.lastOccurrence(), event.occurrenceCount(), event.after(),
+                        event.batchIds()));
+            } else {
+                pendingAlarms.remove(event.id());
+                pendingRemoved.add(event.id());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${alarms.stream.flush-interval-ms:250}")
+    public void flush() {
+        AlarmStreamUpdate update;
+        synchronized (this) {
+            if (pendingAlarms.isEmpty() && pendingRemoved.isEmpty()) {
+                return;
+            }
+            pendingDeltas.values().removeIf(delta -> delta == 0);
+            update = new AlarmStreamUpdate(List.copyOf(pendingAlarms.values()), List.copyOf(pendingRemoved),
+                    new EnumMap<>(pendingDeltas));
+            pendingAlarms.clear();
+            pendingRemoved.clear();
+            pendingDeltas.clear();
+        }
+        if (!subscribers.isEmpty()) {
+            broadcast(frame("id: " + eventIds.incrementAndGet() + "\nevent: alarms\n", update));
+        }
+    }
+
+    // Keeps idle connections open through proxies and notices clients that went away
+    @Scheduled(fixedRateString = "${alarms.stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        broadcast(HEARTBEAT);
+    }
+
+    private void broadcast(byte[] frame) {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(frame);
+        }
+    }
+
+    private byte[] frame(String fields, Object data) {
+        try {
+            StringBuilder frame = new StringBuilder(fields.length() + 256).append(fields).append("data: ")
+                    .append(objectMapper.writeValueAsString(data)).append("\n\n");
+            return frame.toString().getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        senders.shutdownNow();
+    }
+
+    private final class Subscriber {
+        private final ResponseBodyEmitter emitter;
+        private final ArrayBlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(ResponseBodyEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(byte[] frame) {
+            if (!queue.offer(frame)) {
+                drop();
+                return;
+            }
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                byte[] frame;
+                while ((frame = queue.poll()) != null) {
+                    emitter.send(frame);
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop();
+            } finally {
+                draining.set(false);
+            }
+            // A frame offered after the last poll but before the flag was cleared
+            if (!queue.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drop() {
+            if (subscribers.remove(this)) {
+                queue.clear();
+                emitter.complete();
+            }
+        }
+    }
+}
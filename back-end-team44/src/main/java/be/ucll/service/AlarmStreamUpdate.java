@@ -0,0 +1,11 @@
+package be.ucll.service;
+
+import be.ucll.model.Severity;
+
+import java.util.List;
+import java.util.Map;
+
+// One push to alarm stream subscribers: alarms created or changed since the previous push, ids of
+// deleted alarms, and how much each severity's count moved.
+public record AlarmStreamUpdate(List<AlarmSummary> alarms, List<Long> removed, Map<Severity, Long> severityDeltas) {
+}
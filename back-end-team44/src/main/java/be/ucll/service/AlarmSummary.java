@@ -0,0 +1,18 @@
+package be.ucll.service;
+
+import be.ucll.model.Alarm;
+import be.ucll.model.Severity;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// Alarm without its batch entities, only their ids.
+public record AlarmSummary(Long id, int productionStep, Date startDate, Date lastOccurrence, int occurrenceCount,
+                           Severity severity, List<UUID> batchIds) {
+
+    public static AlarmSummary of(Alarm alarm, List<UUID> batchIds) {
+        return new AlarmSummary(alarm.getId(), alarm.getProductionStep(), alarm.getStartDate(),
+                alarm.getLastOccurrence(), alarm.getOccurrenceCount(), alarm.getSeverity(), batchIds);
+    }
+}
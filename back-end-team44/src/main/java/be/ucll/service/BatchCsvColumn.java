@@ -0,0 +1,61 @@
+package be.ucll.service;
+
+import be.ucll.model.Batch;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+// Columns of the batch CSV export and import, in default order. Headers match the batches table.
+public enum BatchCsvColumn {
+    BATCH_ID("batch_id", Batch::getBatchId, (batch, value) -> batch.setBatchId(UUID.fromString(value))),
+    BATCH_NUMBER("batch_number", Batch::getBatchNumber, Batch::setBatchNumber),
+    PRODUCTION_ORDER_NUMBER("production_order_number", Batch::getProductionOrderNumber, Batch::setProductionOrderNumber),
+    RECIPE_ID("recipe_id", Batch::getRecipeId, Batch::setRecipeId),
+    PLANNED_START_TIME("planned_start_time", Batch::getPlannedStartTime,
+            (batch, value) -> batch.setPlannedStartTime(LocalDateTime.parse(value))),
+    ACTUAL_START_TIME("actual_start_time", Batch::getActualStartTime,
+            (batch, value) -> batch.setActualStartTime(LocalDateTime.parse(value))),
+    PLANNED_END_TIME("planned_end_time", Batch::getPlannedEndTime,
+            (batch, value) -> batch.setPlannedEndTime(LocalDateTime.parse(value))),
+    ACTUAL_END_TIME("actual_end_time", Batch::getActualEndTime,
+            (batch, value) -> batch.setActualEndTime(LocalDateTime.parse(value))),
+    EXECUTION_STATUS("execution_status", Batch::getExecutionStatus, Batch::setExecutionStatus),
+    INTERNAL_ID("internal_id", Batch::getInternalId, (batch, value) -> batch.setInternalId(Long.parseLong(value))),
+    NAME("name", Batch::getName, Batch::setName);
+
+    private final String header;
+    private final Function<Batch, Object> extractor;
+    private final BiConsumer<Batch, String> parser;
+
+    BatchCsvColumn(String header, Function<Batch, Object> extractor, BiConsumer<Batch, String> parser) {
+        this.header = header;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getHeader() {
+        return header;
+    }
+
+    public Object valueOf(Batch batch) {
+        return extractor.apply(batch);
+    }
+
+    // Sets this column on the batch from its CSV text; empty values leave the field null
+    public void parseInto(Batch batch, String value) {
+        if (value != null && !value.isEmpty()) {
+            parser.accept(batch, value);
+        }
+    }
+
+    public static BatchCsvColumn fromHeader(String header) {
+        for (BatchCsvColumn column : values()) {
+            if (column.header.equals(header)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("Unknown batch column: " + header);
+    }
+}
@@ -0,0 +1,33 @@
+package be.ucll.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+// Position of the last batch on a page: the value of the sort column (null allowed) and the batch id.
+// Encoded as URL-safe Base64 so it can be passed around as an opaque query parameter.
+public record BatchCursor(String value, UUID batchId) {
+
+    private static final char NULL_MARKER = '-';
+    private static final char VALUE_MARKER = '+';
+
+    public static BatchCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf('\n');
+            UUID batchId = UUID.fromString(decoded.substring(0, separator));
+            String value = decoded.charAt(separator + 1) == NULL_MARKER ? null : decoded.substring(separator + 2);
+            return new BatchCursor(value, batchId);
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid batch cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = batchId + "\n" + (value == null ? String.valueOf(NULL_MARKER) : VALUE_MARKER + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
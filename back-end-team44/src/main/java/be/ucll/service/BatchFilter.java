@@ -0,0 +1,23 @@
+package be.ucll.service;
+
+import java.time.LocalDateTime;
+
+// Mirrors the BatchFilters of the frontend; null or blank fields are ignored.
+// Text fields match case-insensitively on a substring, the dates bound actualStartTime
+// (startDate inclusive, endDate exclusive).
+public record BatchFilter(String executionStatus, String batchNumber, String productionOrderNumber,
+        String recipeId, LocalDateTime startDate, LocalDateTime endDate) {
+
+    public static BatchFilter none() {
+        return new BatchFilter(null, null, null, null, null, null);
+    }
+
+    public boolean isEmpty() {
+        return isBlank(executionStatus) && isBlank(batchNumber) && isBlank(productionOrderNumber)
+                && isBlank(recipeId) && startDate == null && endDate == null;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,125 @@
+package be.ucll.service;
+
+import be.ucll.model.Batch;
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchEndState;
+import be.ucll.model.BatchSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+// Serialised JSON of batches that have ended. Those no longer change, so their bytes are kept
+// (bounded by total size) and copied straight into responses. Running batches are serialised
+// on every call. Any write to a batch still drops its entry, in case it was corrected after all.
+@Component
+public class BatchJsonCache {
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "ABORTED", "FAILED");
+    private static final int LOAD_CHUNK = 500;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<UUID, byte[]> json;
+
+    public BatchJsonCache(ObjectMapper objectMapper,
+                          @Value("${batches.json-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.json = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<UUID, byte[]>weigher((id, bytes) -> bytes.length)
+                .build();
+    }
+
+    public byte[] toJson(Batch batch) {
+        if (batch.getBatchId() == null || !isFinal(batch)) {
+            return serialise(batch);
+        }
+        return json.get(batch.getBatchId(), id -> serialise(batch));
+    }
+
+    // Writes all batches as one JSON array, given only their ids and end state. Only the batches
+    // without cached JSON are loaded, LOAD_CHUNK ids at a time; batches deleted in between are left out.
+    public void writeArray(List<BatchEndState> states, Function<List<UUID>, List<Batch>> loader, OutputStream out)
+            throws IOException {
+        boolean first = true;
+        out.write('[');
+        for (int start = 0; start < states.size(); start += LOAD_CHUNK) {
+            List<BatchEndState> chunk = states.subList(start, Math.min(states.size(), start + LOAD_CHUNK));
+            byte[][] cached = new byte[chunk.size()][];
+            List<UUID> misses = new ArrayList<>();
+            for (int i = 0; i < chunk.size(); i++) {
+                BatchEndState state = chunk.get(i);
+                if (isFinal(state.executionStatus(), state.actualEndTime())) {
+                    cached[i] = json.getIfPresent(state.batchId());
+                }
+                if (cached[i] == null) {
+                    misses.add(state.batchId());
+                }
+            }
+            Map<UUID, Batch> loaded = new HashMap<>();
+            if (!misses.isEmpty()) {
+                for (Batch batch : loader.apply(misses)) {
+                    loaded.put(batch.getBatchId(), batch);
+                }
+            }
+            for (int i = 0; i < chunk.size(); i++) {
+                byte[] bytes = cached[i];
+                if (bytes == null) {
+                    Batch batch = loaded.get(chunk.get(i).batchId());
+                    if (batch == null) {
+                        continue;
+                    }
+                    bytes = toJson(batch);
+                }
+                if (!first) {
+                    out.write(',');
+                }
+                out.write(bytes);
+                first = false;
+            }
+        }
+        out.write(']');
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBatchChanged(BatchChangedEvent event) {
+        evict(event.before());
+        evict(event.after());
+    }
+
+    private void evict(BatchSnapshot snapshot) {
+        if (snapshot != null && snapshot.batchId() != null) {
+            json.invalidate(snapshot.batchId());
+        }
+    }
+
+    private static boolean isFinal(Batch batch) {
+        return isFinal(batch.getExecutionStatus(), batch.getActualEndTime());
+    }
+
+    private static boolean isFinal(String executionStatus, LocalDateTime actualEndTime) {
+        return actualEndTime != null && TERMINAL_STATUSES.contains(executionStatus);
+    }
+
+    private byte[] serialise(Batch batch) {
+        try {
+            return objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package be.ucll.service;
+
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchSnapshot;
+import be.ucll.repository.BatchRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Keeps the batch KPIs as running counters so reading them never touches the database.
+// Seeded with one scan at startup, then adjusted by every committed batch insert, update or delete.
+// Weekly figures come from hourly buckets keyed on actualEndTime.
+// Counters only follow writes made through JPA (or announced as BatchChangedEvents); rows that
+// other systems insert straight into the table are picked up by the periodic reseed. A reseed
+// counts into fresh counters and swaps them in, so readers never see a half-finished scan.
+// Updates and reads take no lock: each event is added to whichever counters are current, and a
+// reseed hands over by swapping in a new version and waiting for writers still on the old one.
+@Component
+public class BatchKpiAggregator {
+
+    private static final int WEEK_HOURS = 7 * 24;
+    private static final int REPLAY_CHUNK = 1000;
+
+    private final BatchRepository batchRepository;
+    private final Object seedLock = new Object();
+    private volatile Version current = new Version(new Counters(), null);
+
+    public BatchKpiAggregator(BatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
+    }
+
+    // Repeatable read, so the lookup after the scan sees exactly the rows the scan counted
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${batches.kpi.reconcile-ms:3600000}", fixedDelayString = "${batches.kpi.reconcile-ms:3600000}")
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void seed() {
+        synchronized (seedLock) {
+            Reseed reseed = new Reseed();
+            swap(new Version(current.counters, reseed));
+            Counters seeded = new Counters();
+            try {
+                try (Stream<BatchSnapshot> snapshots = batchRepository.streamSnapshots()) {
+                    snapshots.forEach(snapshot -> seeded.apply(snapshot, 1));
+                }
+                // Apply what is recorded so far before readers see the new counters, then the rest
+                reseed.replayInto(seeded);
+                swap(new Version(seeded, null));
+                reseed.replayInto(seeded);
+            } finally {
+                if (current.reseed == reseed) {
+                    swap(new Version(current.counters, null));
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBatchChanged(BatchChangedEvent event) {
+        while (true) {
+            Version version = current;
+            version.writers.incrementAndGet();
+            try {
+                if (version != current) {
+                    continue;
+                }
+                version.counters.apply(event);
+                if (version.reseed != null) {
+                    version.reseed.record(event);
+                }
+                return;
+            } finally {
+                version.writers.decrementAndGet();
+            }
+        }
+    }
+
+    public BatchStats getStats() {
+        Counters counters = current.counters;
+        long total = counters.totalBatches.sum();
+        long completed = counters.completedBatches.sum();
+
+        long fromHour = currentHour() - WEEK_HOURS;
+        long thisWeek = 0;
+        long failedThisWeek = 0;
+        for (var entry : counters.endedByHour.entrySet()) {
+            if (entry.getKey() >= fromHour) {
+                thisWeek += entry.getValue().ended.sum();
+                failedThisWeek += entry.getValue().aborted.sum();
+            }
+        }
+
+        double successRate = total > 0 ? (counters.passedBatches.sum() * 100.0) / total : 0.0;
+        double avgBatchDuration = completed > 0 ? (counters.totalDurationMinutes.sum() / 60.0) / completed : 0.0;
+        return new BatchStats(total, thisWeek, round(successRate), failedThisWeek, round(avgBatchDuration));
+    }
+
+    // Drop hourly buckets that can no longer fall inside the weekly window.
+    @Scheduled(fixedDelay = 3_600_000)
+    public void evictExpiredBuckets() {
+        long fromHour = currentHour() - WEEK_HOURS - 1;
+        current.counters.endedByHour.keySet().removeIf(hour -> hour < fromHour);
+    }
+
+    // Publishes next and waits until no event is still being applied to the version it replaced,
+    // so everything recorded on the old version is visible to the caller afterwards.
+    private Version swap(Version next) {
+        Version old = current;
+        current = next;
+        while (old.writers.get() > 0) {
+            Thread.onSpinWait();
+        }
+        return old;
+    }
+
+    private static long hourOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    private static long currentHour() {
+        return hourOf(LocalDateTime.now());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static final class Counters {
+        private final LongAdder totalBatches = new LongAdder();
+        private final LongAdder passedBatches = new LongAdder();
+        private final LongAdder completedBatches = new LongAdder();
+        private final LongAdder totalDurationMinutes = new LongAdder();
+        private final ConcurrentMap<Long, HourBucket> endedByHour = new ConcurrentHashMap<>();
+
+        private void apply(BatchChangedEvent event) {
+            if (event.before() != null) {
+                apply(event.before(), -1);
+            }
+            if (event.after() != null) {
+                apply(event.after(), 1);
+            }
+        }
+
+        private void apply(BatchSnapshot batch, int sign) {
+            totalBatches.add(sign);
+
+            // Batches that passed (not ABORTED or FAILED)
+            String status = batch.executionStatus();
+            if (status != null && !"ABORTED".equals(status) && !"FAILED".equals(status)) {
+                passedBatches.add(sign);
+            }
+
+            if (batch.actualStartTime() != null && batch.actualEndTime() != null) {
+                completedBatches.add(sign);
+                totalDurationMinutes.add(sign * Duration.between(batch.actualStartTime(), batch.actualEndTime()).toMinutes());
+            }
+
+            if (batch.actualEndTime() != null) {
+                HourBucket bucket = endedByHour.computeIfAbsent(hourOf(batch.actualEndTime()), hour -> new HourBucket());
+                bucket.ended.add(sign);
+                if ("ABORTED".equals(status)) {
+                    bucket.aborted.add(sign);
+                }
+            }
+        }
+    }
+
+    // The counters in use, plus the reseed (if any) that wants to hear about every event they take
+    private static final class Version {
+        private final Counters counters;
+        private final Reseed reseed;
+        private final AtomicInteger writers = new AtomicInteger();
+
+        private Version(Counters counters, Reseed reseed) {
+            this.counters = counters;
+            this.reseed = reseed;
+        }
+    }
+
+    // Net change per batch while a reseed runs: the state before its first event and after its
+    // last. Replaying takes out the state the scan counted for that batch and adds the latest
+    // one, so an event the scan already saw is not counted twice.
+    private final class Reseed {
+        private final ConcurrentMap<UUID, Change> changes = new ConcurrentHashMap<>();
+        private final Set<UUID> replayed = new HashSet<>();
+
+        private void record(BatchChangedEvent event) {
+            BatchSnapshot any = event.after() != null ? event.after() : event.before();
+            changes.merge(any.batchId(), new Change(event.before(), event.after()),
+                    (first, next) -> new Change(first.before(), next.after()));
+        }
+
+        private void replayInto(Counters seeded) {
+            List<UUID> batchIds = new ArrayList<>(changes.keySet());
+            Map<UUID, BatchSnapshot> scanned = new HashMap<>();
+            List<UUID> unseen = batchIds.stream().filter(batchId -> !replayed.contains(batchId)).toList();
+            for (int from = 0; from < unseen.size(); from += REPLAY_CHUNK) {
+                for (BatchSnapshot snapshot : batchRepository.findSnapshotsByIds(
+                        unseen.subList(from, Math.min(unseen.size(), from + REPLAY_CHUNK)))) {
+                    scanned.put(snapshot.batchId(), snapshot);
+                }
+            }
+            for (UUID batchId : batchIds) {
+                Change change = changes.remove(batchId);
+                // Once replayed, the new counters already hold the state this change starts from
+                BatchSnapshot counted = replayed.add(batchId) ? scanned.get(batchId) : change.before();
+                if (counted != null) {
+                    seeded.apply(counted, -1);
+                }
+                if (change.after() != null) {
+                    seeded.apply(change.after(), 1);
+                }
+            }
+        }
+    }
+
+    private record Change(BatchSnapshot before, BatchSnapshot after) {
+    }
+
+    private static final class HourBucket {
+        private final LongAdder ended = new LongAdder();
+        private final LongAdder aborted = new LongAdder();
+    }
+}
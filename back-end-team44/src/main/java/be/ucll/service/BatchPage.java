@@ -0,0 +1,10 @@
+package be.ucll.service;
+
+import be.ucll.model.Batch;
+
+import java.util.List;
+
+// One page of batches. total is only filled in for the first page (no cursor) and is an
+// estimate from the database statistics when totalEstimated is true.
+public record BatchPage(List<Batch> items, String nextCursor, Long total, boolean totalEstimated) {
+}
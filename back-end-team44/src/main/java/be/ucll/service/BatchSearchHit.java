@@ -0,0 +1,8 @@
+package be.ucll.service;
+
+import java.util.UUID;
+
+// One search result; matchedField is the field that gave the best score.
+public record BatchSearchHit(UUID batchId, String batchNumber, String productionOrderNumber, String name,
+                             String matchedField, int score) {
+}
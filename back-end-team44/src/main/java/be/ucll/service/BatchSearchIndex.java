@@ -0,0 +1,260 @@
+package be.ucll.service;
+
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchSnapshot;
+import be.ucll.repository.BatchRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// In-memory substring index over batchNumber, productionOrderNumber and name, for typeahead.
+// Candidates come from a sorted prefix map and, for queries of three characters or more, from the
+// intersection of trigram postings. Seeded at startup and kept current by committed
+// BatchChangedEvents, which the bulk ingest publishes per row as well. A seed builds a new index
+// next to the live one and swaps it in, so searches never see a half-built index. Reads take no
+// locks; writers are serialised.
+@Component
+public class BatchSearchIndex {
+    public static final int MAX_RESULTS = 100;
+
+    private static final int MAX_CANDIDATES = 10_000;
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private enum Field {
+        BATCH_NUMBER("batchNumber", 3), PRODUCTION_ORDER_NUMBER("productionOrderNumber", 2), NAME("name", 1);
+
+        private final String property;
+        private final int weight;
+
+        Field(String property, int weight) {
+            this.property = property;
+            this.weight = weight;
+        }
+    }
+
+    private record Entry(UUID batchId, String batchNumber, String productionOrderNumber, String name, String[] keys) {
+
+        String value(Field field) {
+            return switch (field) {
+                case BATCH_NUMBER -> batchNumber;
+                case PRODUCTION_ORDER_NUMBER -> productionOrderNumber;
+                case NAME -> name;
+            };
+        }
+    }
+
+    private record Scored(Entry entry, Field field, int score, int length) {
+    }
+
+    private static final Comparator<Scored> BEST_FIRST = Comparator.comparingInt(Scored::score).reversed()
+            .thenComparingInt(Scored::length)
+            .thenComparing(scored -> scored.entry().batchId());
+
+    private final BatchRepository batchRepository;
+    private final Object seedLock = new Object();
+    private volatile Index index = new Index();
+    // Changes committed while a reseed scans, replayed onto the new index before it is swapped in
+    private List<BatchChangedEvent> pending;
+
+    public BatchSearchIndex(BatchRepository batchRepository) {
+        this.batchRepository = batchRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void seed() {
+        synchronized (seedLock) {
+            synchronized (this) {
+                pending = new ArrayList<>();
+            }
+            try {
+                Index seeded = new Index();
+                try (Stream<BatchSnapshot> snapshots = batchRepository.streamSnapshots()) {
+                    snapshots.forEach(seeded::add);
+                }
+                synchronized (this) {
+                    pending.forEach(seeded::apply);
+                    index = seeded;
+                }
+            } finally {
+                synchronized (this) {
+                    pending = null;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onBatchChanged(BatchChangedEvent event) {
+        index.apply(event);
+        if (pending != null) {
+            pending.add(event);
+        }
+    }
+
+    public int size() {
+        return index.entries.size();
+    }
+
+    // Best matches first: exact before prefix before substring, then batchNumber before
+    // productionOrderNumber before name, then shorter values.
+    public List<BatchSearchHit> search(String query, int limit) {
+        if (limit < 1 || limit > MAX_RESULTS) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_RESULTS + ".");
+        }
+        String needle = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+
+        Index current = index;
+        PriorityQueue<Scored> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        for (UUID batchId : current.candidates(needle)) {
+            Entry entry = current.entries.get(batchId);
+            Scored scored = entry == null ? null : score(entry, needle);
+            if (scored != null) {
+                best.add(scored);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(BEST_FIRST);
+        return ranked.stream()
+                .map(scored -> new BatchSearchHit(scored.entry().batchId(), scored.entry().batchNumber(),
+                        scored.entry().productionOrderNumber(), scored.entry().name(), scored.field().property,
+                        scored.score()))
+                .toList();
+    }
+
+    private static Scored score(Entry entry, String needle) {
+        Scored best = null;
+        for (Field field : Field.values()) {
+            String key = entry.keys()[field.ordinal()];
+            if (key == null) {
+                continue;
+            }
+            int kind = key.equals(needle) ? 3 : key.startsWith(needle) ? 2 : key.contains(needle) ? 1 : 0;
+            if (kind == 0) {
+                continue;
+            }
+            Scored scored = new Scored(entry, field, kind * 10 + field.weight, key.length());
+            if (best == null || BEST_FIRST.compare(scored, best) < 0) {
+                best = scored;
+            }
+        }
+        return best;
+    }
+
+    private static final class Index {
+        private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> trigrams = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListMap<String, UUID> prefixes = new ConcurrentSkipListMap<>();
+
+        // At most MAX_CANDIDATES ids. Values starting with the needle come first, in key order,
+        // so exact and prefix matches survive the cap; then, for three characters or more, ids
+        // in every posting list of the query's trigrams. score() checks the actual substring.
+        private Set<UUID> candidates(String needle) {
+            Set<UUID> ids = new LinkedHashSet<>();
+            for (UUID id : prefixes.subMap(needle, needle + Character.MAX_VALUE).values()) {
+                ids.add(id);
+                if (ids.size() >= MAX_CANDIDATES) {
+                    return ids;
+                }
+            }
+            if (needle.length() < 3) {
+                return ids;
+            }
+            List<Set<UUID>> postings = new ArrayList<>();
+            for (int i = 0; i + 3 <= needle.length(); i++) {
+                Set<UUID> posting = trigrams.get(needle.substring(i, i + 3));
+                if (posting == null) {
+                    return ids;
+                }
+                postings.add(posting);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            next:
+            for (UUID id : postings.get(0)) {
+                for (int i = 1; i < postings.size(); i++) {
+                    if (!postings.get(i).contains(id)) {
+                        continue next;
+                    }
+                }
+                ids.add(id);
+                if (ids.size() >= MAX_CANDIDATES) {
+                    break;
+                }
+            }
+            return ids;
+        }
+
+        private void apply(BatchChangedEvent event) {
+            if (event.before() != null) {
+                remove(event.before().batchId());
+            }
+            if (event.after() != null) {
+                remove(event.after().batchId());
+                add(event.after());
+            }
+        }
+
+        private void add(BatchSnapshot batch) {
+            if (batch.batchId() == null) {
+                return;
+            }
+            String[] keys = new String[Field.values().length];
+            Entry entry = new Entry(batch.batchId(), batch.batchNumber(), batch.productionOrderNumber(), batch.name(), keys);
+            for (Field field : Field.values()) {
+                String value = entry.value(field);
+                if (value == null || value.isBlank()) {
+                    continue;
+                }
+                String key = value.toLowerCase(Locale.ROOT);
+                keys[field.ordinal()] = key;
+                prefixes.put(key + KEY_SEPARATOR + batch.batchId(), batch.batchId());
+                for (int i = 0; i + 3 <= key.length(); i++) {
+                    trigrams.computeIfAbsent(key.substring(i, i + 3), trigram -> ConcurrentHashMap.newKeySet())
+                            .add(batch.batchId());
+                }
+            }
+            entries.put(batch.batchId(), entry);
+        }
+
+        private void remove(UUID batchId) {
+            Entry entry = batchId == null ? null : entries.remove(batchId);
+            if (entry == null) {
+                return;
+            }
+            for (String key : entry.keys()) {
+                if (key == null) {
+                    continue;
+                }
+                prefixes.remove(key + KEY_SEPARATOR + batchId);
+                for (int i = 0; i + 3 <= key.length(); i++) {
+                    trigrams.computeIfPresent(key.substring(i, i + 3), (trigram, ids) -> {
+                        ids.remove(batchId);
+                        return ids.isEmpty() ? null : ids;
+                    });
+                }
+            }
+        }
+    }
+}
@@ -2,23 +2,29 @@ package be.ucll.service;
 
 import be.ucll.model.Batch;
 import be.ucll.repository.BatchRepository;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
+import static be.ucll.repository.BatchSpecifications.*;
 
 @Service
 public class BatchService {
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    // Below this size the planner estimate is too coarse and an exact count is cheap anyway.
+    private static final long EXACT_COUNT_THRESHOLD = 10_000;
 
     private final BatchRepository batchRepository;
+    private final BatchKpiAggregator batchKpiAggregator;
 
-    public BatchService(BatchRepository batchRepository) {
+    public BatchService(BatchRepository batchRepository, BatchKpiAggregator batchKpiAggregator) {
         this.batchRepository = batchRepository;
+        this.batchKpiAggregator = batchKpiAggregator;
     }
 
     public Batch getBatchParameters(UUID batchId) {
@@ -26,78 +32,49 @@ public class BatchService {
                 .orElseThrow(() -> new RuntimeException("Batch with id " + batchId + " does not exist!"));
     }
 
-    public List<Batch> getAllBatches(){
-        return batchRepository.findAll();
-    }
-
-    public String getBatchStats(){
-        List<Batch> allBatches = this.getAllBatches();
-        int totalBatches = allBatches.size();
-
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
-        List<Batch> batchesThisWeek = new ArrayList<>();
-        List<Batch> failedBatchesThisWeek = new ArrayList<>();
-
-        long totalDurationMinutes = 0;
-        int completedBatchesCount = 0;
-        int passedBatches = 0;
-
-        for (Batch batch : allBatches) {
-            // Count batches from this week
-            if (batch.getActualEndTime() != null &&
-                    batch.getActualEndTime().isAfter(sevenDaysAgo)) {
-                batchesThisWeek.add(batch);
+    // Filtered, sorted page of batches. Pass the cursor of the previous page to continue;
+    // the database seeks on (sort column, batchId) so deep pages cost the same as the first.
+    public BatchPage queryBatches(BatchFilter filter, BatchSort sort, boolean ascending, BatchCursor cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE + ".");
+        }
 
-                // Count failed batches this week
-                if ("ABORTED".equals(batch.getExecutionStatus())) {
-                    failedBatchesThisWeek.add(batch);
-                }
-            }
+        Specification<Batch> spec = Specification.where(hasExecutionStatus(filter.executionStatus()))
+                .and(batchNumberContains(filter.batchNumber()))
+                .and(productionOrderNumberContains(filter.productionOrderNumber()))
+                .and(recipeIdContains(filter.recipeId()))
+                .and(startedFrom(filter.startDate()))
+                .and(startedBefore(filter.endDate()));
+        Specification<Batch> pageSpec = spec.and(orderedBy(sort.getProperty(), ascending));
+        if (cursor != null) {
+            pageSpec = pageSpec.and(after(sort.getProperty(), sort.parse(cursor.value()), cursor.batchId(), ascending));
+        }
 
-            // Calculate duration for completed batches
-            if (batch.getActualStartTime() != null &&
-                    batch.getActualEndTime() != null) {
-                Duration duration = Duration.between(
-                        batch.getActualStartTime(),
-                        batch.getActualEndTime()
-                );
-                totalDurationMinutes += duration.toMinutes();
-                completedBatchesCount++;
-            }
+        List<Batch> items = batchRepository.findBy(pageSpec, query -> query.limit(limit).all());
+        String nextCursor = items.size() == limit ? sort.cursorOf(items.get(items.size() - 1)).encode() : null;
 
-            // Count batches that passed (not ABORTED or FAILED)
-            String status = batch.getExecutionStatus();
-            if (status != null &&
-                    !"ABORTED".equals(status) &&
-                    !"FAILED".equals(status)) {
-                passedBatches++;
+        if (cursor != null) {
+            return new BatchPage(items, nextCursor, null, false);
+        }
+        if (filter.isEmpty()) {
+            Long estimate = estimateBatchCount();
+            if (estimate != null && estimate >= EXACT_COUNT_THRESHOLD) {
+                return new BatchPage(items, nextCursor, estimate, true);
             }
         }
+        return new BatchPage(items, nextCursor, batchRepository.count(spec), false);
+    }
 
-        // Calculate average duration in hours
-        double avgBatchDuration = completedBatchesCount > 0
-                ? (totalDurationMinutes / 60.0) / completedBatchesCount
-                : 0.0;
-
-        // Calculate success rate
-        double successRate = totalBatches > 0
-                ? (passedBatches * 100.0) / totalBatches
-                : 0.0;
+    private Long estimateBatchCount() {
+        try {
+            return batchRepository.estimateRowCount();
+        } catch (DataAccessException ex) {
+            // Not PostgreSQL; fall back to an exact count.
+            return null;
+        }
+    }
 
-        return """
-            {
-                "totalBatches": %d,
-                "batchesThisWeek": %d,
-                "successRate": %.2f%%,
-                "failedBatchesThisWeek": %d,
-                "avgBatchDuration": %.2f hours
-            }
-            """.formatted(
-                totalBatches,
-                batchesThisWeek.size(),
-                successRate,
-                failedBatchesThisWeek.size(),
-                avgBatchDuration
-        );
+    public BatchStats getBatchStats() {
+        return batchKpiAggregator.getStats();
     }
 }
@@ -0,0 +1,46 @@
+package be.ucll.service;
+
+import be.ucll.model.Batch;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+// Columns a batch listing can be ordered on. batchId is always added as tie-breaker.
+public enum BatchSort {
+    ACTUAL_START_TIME("actualStartTime", Batch::getActualStartTime, LocalDateTime::parse),
+    PLANNED_START_TIME("plannedStartTime", Batch::getPlannedStartTime, LocalDateTime::parse),
+    ACTUAL_END_TIME("actualEndTime", Batch::getActualEndTime, LocalDateTime::parse),
+    BATCH_NUMBER("batchNumber", Batch::getBatchNumber, value -> value),
+    PRODUCTION_ORDER_NUMBER("productionOrderNumber", Batch::getProductionOrderNumber, value -> value);
+
+    private final String property;
+    private final Function<Batch, Object> extractor;
+    private final Function<String, Comparable<?>> parser;
+
+    BatchSort(String property, Function<Batch, Object> extractor, Function<String, Comparable<?>> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public BatchCursor cursorOf(Batch batch) {
+        Object value = extractor.apply(batch);
+        return new BatchCursor(value == null ? null : value.toString(), batch.getBatchId());
+    }
+
+    public Comparable<?> parse(String value) {
+        return value == null ? null : parser.apply(value);
+    }
+
+    public static BatchSort fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Cannot sort batches on: " + property));
+    }
+}
@@ -0,0 +1,6 @@
+package be.ucll.service;
+
+// Dashboard KPIs for batches. successRate is a percentage, avgBatchDuration is in hours.
+public record BatchStats(long totalBatches, long batchesThisWeek, double successRate, long failedBatchesThisWeek,
+        double avgBatchDuration) {
+}
@@ -1,52 +1,98 @@
 package be.ucll.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import be.ucll.model.Batch;
+import be.ucll.repository.BatchRepository;
+import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.*;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
+// Writes batches as RFC 4180 CSV straight to the caller's stream. Rows come from a forward-only
+// database cursor and are detached once written, so memory use does not grow with the row count.
 @Service
 public class CSVService {
 
-    private final ObjectMapper objectMapper;
+    private static final String LINE_END = "\r\n";
 
-    public CSVService() {
-        this.objectMapper = new ObjectMapper();
-        this.objectMapper.registerModule(new JavaTimeModule());
-    }
-
-    public File generateCSV(List<Map<String, Object>> batchData)
-            throws IOException, InterruptedException {
-
-        String jsonInput = objectMapper.writeValueAsString(batchData);
-
-        ProcessBuilder pb = new ProcessBuilder(
-                "python3",
-                "src/main/resources/generate_csv.py"
-        );
+    private final BatchRepository batchRepository;
+    private final EntityManager entityManager;
 
-        Process process = pb.start();
+    public CSVService(BatchRepository batchRepository, EntityManager entityManager) {
+        this.batchRepository = batchRepository;
+        this.entityManager = entityManager;
+    }
 
-        try (BufferedWriter writer =
-                     new BufferedWriter(new OutputStreamWriter(process.getOutputStream()))) {
-            writer.write(jsonInput);
+    @Transactional(readOnly = true)
+    public long exportAllBatches(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        try (Stream<Batch> batches = batchRepository.streamAll()) {
+            long rows = writeCsv(batches.peek(entityManager::detach).iterator(), List.of(BatchCsvColumn.values()), writer);
+            writer.flush();
+            return rows;
         }
+    }
 
-        String filename;
-        try (BufferedReader reader =
-                     new BufferedReader(new InputStreamReader(process.getInputStream()))) {
-            filename = reader.readLine();
+    public void writeHeader(List<BatchCsvColumn> columns, Writer writer) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(columns.get(i).getHeader());
         }
+        writer.write(LINE_END);
+    }
 
-        int exitCode = process.waitFor();
+    public void writeRow(Batch batch, List<BatchCsvColumn> columns, Writer writer) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = columns.get(i).valueOf(batch);
+            if (value != null) {
+                writeField(value.toString(), writer);
+            }
+        }
+        writer.write(LINE_END);
+    }
 
-        if (exitCode != 0 || filename == null || filename.isEmpty()) {
-            throw new RuntimeException("Python CSV generation failed (exit " + exitCode + ")");
+    public long writeCsv(Iterator<Batch> batches, List<BatchCsvColumn> columns, Writer writer) throws IOException {
+        writeHeader(columns, writer);
+        long rows = 0;
+        while (batches.hasNext()) {
+            writeRow(batches.next(), columns, writer);
+            rows++;
         }
+        return rows;
+    }
 
-        return new File(filename);
+    // Quote only when needed, doubling embedded quotes.
+    private static void writeField(String value, Writer writer) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
     }
-}
\ No newline at end of file
+}
@@ -14,7 +14,9 @@ import be.ucll.repository.UserRepository;
 import be.ucll.service.auth.AuthenticationService;
 import be.ucll.service.auth.UserRegisterDto;
 import be.ucll.service.auth.LoginUserDto;
+import be.ucll.service.auth.TokenEpochService;
 import be.ucll.service.auth.UpdateProfileDto;
+import be.ucll.service.auth.UserPrincipalCache;
 
 @Service
 public class UserService {
@@ -22,13 +24,18 @@ public class UserService {
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
     private AuthenticationService authenticationService;
+    private UserPrincipalCache userPrincipalCache;
+    private TokenEpochService tokenEpochService;
 
     @Autowired
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-            AuthenticationService authenticationService) {
+            AuthenticationService authenticationService, UserPrincipalCache userPrincipalCache,
+            TokenEpochService tokenEpochService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationService = authenticationService;
+        this.userPrincipalCache = userPrincipalCache;
+        this.tokenEpochService = tokenEpochService;
     }
 
     public List<User> getAllUsers() {
@@ -45,26 +52,31 @@ public class UserService {
         return userRepository.findByEmail(userInput.getEmail());
     }
 
+    // One user lookup and one hash check per login; the AuthenticationManager is not involved,
+    // it would repeat both.
     public User loginUser(LoginUserDto userInput) {
         String email = userInput.getEmail();
         String password = userInput.getPassword();
 
-        User existingUser = userRepository.findByEmail(email);
-
-        if (email == null | email == "") {
+        if (email == null || email.isEmpty()) {
             throw new ServiceException("Email is required");
         }
 
-        if (password == null | password == "") {
+        if (password == null || password.isEmpty()) {
             throw new ServiceException("Password is required");
         }
-        if (existingUser != null && passwordEncoder.matches(password, existingUser.getPassword())) {
-            authenticationService.login(userInput, true);
 
-        } else {
+        User existingUser = userRepository.findByEmail(email);
+        if (existingUser == null || !passwordEncoder.matches(password, existingUser.getPassword())) {
             throw new ServiceException("Invalid email or password.");
         }
-        return userRepository.findByEmail(userInput.getEmail());
+        // Stored with another BCrypt cost than this deployment uses: re-hash while we have the password
+        if (passwordEncoder.upgradeEncoding(existingUser.getPassword())) {
+            existingUser.setPassword(passwordEncoder.encode(password));
+            existingUser = userRepository.save(existingUser);
+            userPrincipalCache.invalidate(email);
+        }
+        return existingUser;
     }
 
     public User updateProfile(String email, UpdateProfileDto updateData) {
@@ -76,7 +88,9 @@ public class UserService {
         user.setName(updateData.getName());
         user.setPreferredName(updateData.getPreferredName());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userPrincipalCache.invalidate(email);
+        return saved;
     }
 
     public void deleteAccount(String email) {
@@ -87,5 +101,11 @@ public class UserService {
         
         // Delete user account and associated login responses
         userRepository.delete(user);
+        userPrincipalCache.invalidate(email);
+        tokenEpochService.forget(email);
+    }
+
+    public void logoutEverywhere(String email) {
+        tokenEpochService.revokeAll(email);
     }
 }
@@ -0,0 +1,62 @@
+package be.ucll.service.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// BCrypt with a cost picked for this machine: the highest cost whose hash still fits the latency
+// budget. The cost is part of every stored hash ($2a$NN$...), and upgradeEncoding reports any hash
+// made with a different cost, so logins can re-hash it with the current one.
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+    private static final Logger log = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+    private static final Pattern COST = Pattern.compile("^\\$2[abyx]?\\$(\\d\\d)\\$");
+    private static final int PROBE_COST = 6;
+
+    private final int cost;
+
+    public CalibratedBCryptPasswordEncoder(int cost) {
+        super(cost);
+        this.cost = cost;
+    }
+
+    public static CalibratedBCryptPasswordEncoder calibrate(long budgetMillis, int minCost, int maxCost) {
+        int cost = calibrateCost(budgetMillis, minCost, maxCost);
+        log.info("Password hashing uses BCrypt cost {} for a {} ms budget", cost, budgetMillis);
+        return new CalibratedBCryptPasswordEncoder(cost);
+    }
+
+    // Times a cheap probe hash (best of a few runs) and extrapolates: each cost step doubles the work.
+    static int calibrateCost(long budgetMillis, int minCost, int maxCost) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_COST);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration-probe");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long budgetNanos = budgetMillis * 1_000_000;
+        int cost = PROBE_COST;
+        double nanos = best;
+        while (cost < maxCost && nanos * 2 <= budgetNanos) {
+            nanos *= 2;
+            cost++;
+        }
+        return Math.max(minCost, Math.min(maxCost, cost));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+}
@@ -2,8 +2,6 @@ package be.ucll.service.auth;
 
 import be.ucll.model.User;
 import be.ucll.repository.UserRepository;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -12,14 +10,11 @@ public class DefaultAuthenticationService implements AuthenticationService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
 
     public DefaultAuthenticationService(UserRepository userRepository,
-                                        PasswordEncoder passwordEncoder,
-                                        AuthenticationManager authenticationManager) {
+                                        PasswordEncoder passwordEncoder) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
     }
 
     @Override
@@ -28,12 +23,4 @@ public class DefaultAuthenticationService implements AuthenticationService {
                 passwordEncoder.encode(userInput.getPassword()));
         return userRepository.save(user);
     }
-
-    @Override
-    public User login(LoginUserDto userInput, boolean foundUser) {
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(userInput.getEmail(), userInput.getPassword())
-        );
-        return userRepository.findByEmail(userInput.getEmail());
-    }
 }
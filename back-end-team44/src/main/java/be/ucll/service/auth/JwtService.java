@@ -1,6 +1,10 @@
 package be.ucll.service.auth;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
@@ -12,15 +16,17 @@ import org.springframework.security.core.userdetails.UserDetails;
 
 import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
 public class JwtService {
 
+    public static final String EPOCH_CLAIM = "epoch";
+
     // Base64-encoded secret key from application.properties
     @Value("${security.jwt.secret-key:}")
     private String secretKey;
@@ -28,7 +34,13 @@ public class JwtService {
     @Value("${security.jwt.expiration-time:3600000}") // default 1 hour
     private long jwtExpiration;
 
+    // Upper bound on verified tokens kept in memory
+    @Value("${security.jwt.cache-size:10000}")
+    private long cacheSize;
+
     private SecretKey key;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verifiedTokens;
 
     // Initialize the key securely
     @PostConstruct
@@ -43,6 +55,30 @@ public class JwtService {
             byte[] keyBytes = Decoders.BASE64.decode(secretKey);
             key = Keys.hmacShaKeyFor(keyBytes);
         }
+        parser = Jwts.parserBuilder().setSigningKey(key).build();
+        // Entries leave the cache when their token expires, so a cached token is never valid for longer than its exp
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String digest, VerifiedToken token, long currentTime) {
+                        if (token.expiration() == null) {
+                            return Long.MAX_VALUE;
+                        }
+                        return Math.max(0, token.expiration().getTime() - System.currentTimeMillis()) * 1_000_000;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String digest, VerifiedToken token, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
     }
 
     public Long getExpirationTime() {
@@ -57,9 +93,12 @@ public class JwtService {
         return createToken(extraClaims, userDetails, jwtExpiration);
     }
 
+    // The random jti keeps two logins in the same second from producing the same token (and the
+    // same token_hash, which is unique in login_response).
     private String createToken(Map<String, Object> extraClaims, UserDetails userDetails, long expiration) {
         return Jwts.builder()
                 .setClaims(extraClaims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
@@ -67,12 +106,21 @@ public class JwtService {
                 .compact();
     }
 
+    // Checks the signature once per distinct token; later calls are answered from the cache.
+    // Invalid or expired tokens throw the usual JwtException and are not cached.
+    public VerifiedToken verify(String token) {
+        String digest = TokenDigest.of(token);
+        VerifiedToken verified = verifiedTokens.getIfPresent(digest);
+        if (verified == null) {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verified = new VerifiedToken(claims.getSubject(), claims.getExpiration(), claims);
+            verifiedTokens.put(digest, verified);
+        }
+        return verified;
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verify(token).claims();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -87,12 +135,11 @@ public class JwtService {
         return extractClaim(token, Claims::getExpiration);
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpirationDate(token).before(new Date());
+    public Boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(verify(token), userDetails);
     }
 
-    public Boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+    public boolean isTokenValid(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null && token.subject().equals(userDetails.getUsername()) && !token.isExpired();
     }
 }
@@ -0,0 +1,69 @@
+package be.ucll.service.auth;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+
+// Token buckets per email and per client IP. Each login attempt takes one token from both; a
+// bucket holds "capacity" tokens and refills at "refillPerMinute". Idle buckets are forgotten.
+@Component
+public class LoginRateLimiter {
+
+    private final int capacity;
+    private final double refillPerNano;
+    private final Cache<String, TokenBucket> buckets;
+
+    public LoginRateLimiter(@Value("${security.login.rate-limit.capacity:10}") int capacity,
+                            @Value("${security.login.rate-limit.refill-per-minute:5}") int refillPerMinute,
+                            @Value("${security.login.rate-limit.max-keys:100000}") long maxKeys) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / (double) Duration.ofMinutes(1).toNanos();
+        this.buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(15))
+                .maximumSize(maxKeys)
+                .build();
+    }
+
+    // Throws LoginThrottledException when either bucket is empty
+    public void acquire(String email, String clientIp) {
+        if (email != null && !email.isBlank()) {
+            take("email:" + email.trim().toLowerCase(Locale.ROOT));
+        }
+        if (clientIp != null) {
+            take("ip:" + clientIp);
+        }
+    }
+
+    private void take(String key) {
+        TokenBucket bucket = buckets.get(key, ignored -> new TokenBucket(capacity));
+        long waitNanos = bucket.tryTake(capacity, refillPerNano, System.nanoTime());
+        if (waitNanos > 0) {
+            throw new LoginThrottledException("Too many sign-in attempts, try again later",
+                    Math.max(1, Duration.ofNanos(waitNanos).toSeconds()));
+        }
+    }
+
+    private static final class TokenBucket {
+        private double tokens;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int capacity) {
+            this.tokens = capacity;
+        }
+
+        // Returns 0 when a token was taken, otherwise the time until the next one is available
+        synchronized long tryTake(int capacity, double refillPerNano, long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNano);
+        }
+    }
+}
@@ -8,19 +8,34 @@ import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import be.ucll.model.User;
 
+import java.time.Instant;
+
+// One row per issued token. Only the token's digest is stored; the token itself is returned to the
+// client once and never persisted.
 @Entity
-@Table(name = "login_response")
+@Table(name = "login_response", indexes = {
+        @Index(name = "idx_login_response_token_hash", columnList = "token_hash", unique = true),
+        @Index(name = "idx_login_response_expires_at", columnList = "expires_at")
+})
 public class LoginResponse {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Transient
     private String token;
 
+    @JsonIgnore
+    @Column(name = "token_hash", length = 44)
+    private String tokenHash;
+
     @Column(name = "expires_in")
     private long expiresIn;
 
+    @Column(name = "expires_at")
+    private Instant expiresAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @JsonIgnore
@@ -31,8 +46,8 @@ public class LoginResponse {
     }
 
     public LoginResponse(String token, long expiresIn, User user) {
-        this.token = token;
-        this.expiresIn = expiresIn;
+        setToken(token);
+        setExpiresIn(expiresIn);
         this.user = user;
     }
 
@@ -51,6 +66,11 @@ public class LoginResponse {
 
     public void setToken(String token) {
         this.token = token;
+        this.tokenHash = token == null ? null : TokenDigest.of(token);
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
     }
 
     public long getExpiresIn() {
@@ -59,6 +79,11 @@ public class LoginResponse {
 
     public void setExpiresIn(long expiresIn) {
         this.expiresIn = expiresIn;
+        this.expiresAt = Instant.now().plusMillis(expiresIn);
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
     }
 
     public User getUser() {
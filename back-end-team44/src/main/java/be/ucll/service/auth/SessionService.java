@@ -0,0 +1,52 @@
+package be.ucll.service.auth;
+
+import be.ucll.model.User;
+import be.ucll.repository.LoginResponseRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+
+// Login sessions in the login_response table, looked up by token digest. Expired rows are removed
+// by a background sweep in small batches so it never holds long locks on a large table.
+@Service
+public class SessionService {
+
+    private final LoginResponseRepository loginResponseRepository;
+    private final int sweepBatchSize;
+
+    public SessionService(LoginResponseRepository loginResponseRepository,
+                          @Value("${security.sessions.sweep-batch-size:1000}") int sweepBatchSize) {
+        this.loginResponseRepository = loginResponseRepository;
+        this.sweepBatchSize = sweepBatchSize;
+    }
+
+    public LoginResponse create(User user, String token, long expiresIn) {
+        return loginResponseRepository.save(new LoginResponse(token, expiresIn, user));
+    }
+
+    // Single DELETE on the unique token_hash index; returns whether a session existed
+    public boolean end(String token) {
+        return loginResponseRepository.deleteByTokenHash(TokenDigest.of(token)) > 0;
+    }
+
+    @Scheduled(fixedDelayString = "${security.sessions.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        sweepExpired(Instant.now());
+    }
+
+    public long sweepExpired(Instant now) {
+        long removed = 0;
+        List<Long> ids;
+        do {
+            ids = loginResponseRepository.findExpiredIds(now, PageRequest.of(0, sweepBatchSize));
+            if (!ids.isEmpty()) {
+                removed += loginResponseRepository.deleteByIdIn(ids);
+            }
+        } while (ids.size() == sweepBatchSize);
+        return removed;
+    }
+}
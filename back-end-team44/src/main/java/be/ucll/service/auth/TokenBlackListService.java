@@ -1,19 +1,104 @@
 package be.ucll.service.auth;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.util.HashSet;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+// Revoked tokens, keyed by digest and kept only until the token would have expired anyway.
+// Entries sit in one-minute expiry buckets that are dropped as a whole by the sweeper. Lookups
+// first consult a Bloom filter, so the usual "not revoked" answer costs a hash over the token's
+// chars and a few bit reads, without locking or allocating.
 @Service
 public class TokenBlackListService {
-    private final Set<String> blacklistedTokens = new HashSet<>();
+    private static final long BUCKET_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private record Revocation(long hash, long expiresAt) {
+    }
+
+    private final JwtService jwtService;
+    private final int expectedTokens;
+    private final double falsePositiveRate;
+    private final Map<String, Revocation> revoked = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> expiryBuckets = new ConcurrentHashMap<>();
+    private volatile TokenBloomFilter filter;
+
+    public TokenBlackListService(JwtService jwtService,
+                                 @Value("${security.blacklist.expected-tokens:100000}") int expectedTokens,
+                                 @Value("${security.blacklist.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jwtService = jwtService;
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new TokenBloomFilter(expectedTokens, falsePositiveRate);
+    }
 
     public void blacklistToken(String token) {
-        blacklistedTokens.add(token);
+        Instant expiresAt;
+        try {
+            Date expiration = jwtService.verify(token).expiration();
+            expiresAt = expiration == null
+                    ? Instant.now().plusMillis(jwtService.getExpirationTime())
+                    : expiration.toInstant();
+        } catch (RuntimeException e) {
+            // Tokens that no longer verify are rejected by the filter anyway
+            return;
+        }
+        blacklistToken(token, expiresAt);
+    }
+
+    public void blacklistToken(String token, Instant expiresAt) {
+        String digest = TokenDigest.of(token);
+        long hash = TokenDigest.hash64(token);
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        revoked.put(digest, new Revocation(hash, expiresAtMillis));
+        expiryBuckets.computeIfAbsent(expiresAtMillis / BUCKET_MILLIS, bucket -> ConcurrentHashMap.newKeySet()).add(digest);
+        filter.add(hash);
     }
 
     public boolean isTokenBlacklisted(String token) {
-        return blacklistedTokens.contains(token);
+        if (!filter.mightContain(TokenDigest.hash64(token))) {
+            return false;
+        }
+        Revocation revocation = revoked.get(TokenDigest.of(token));
+        return revocation != null && revocation.expiresAt() > System.currentTimeMillis();
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${security.blacklist.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        evictExpired(Instant.now());
+    }
+
+    // Drops every bucket that ended before now, then rebuilds the Bloom filter from what is left so
+    // it does not keep answering "maybe" for tokens that are gone.
+    public void evictExpired(Instant now) {
+        long currentBucket = now.toEpochMilli() / BUCKET_MILLIS;
+        boolean removed = false;
+        for (Long bucket : expiryBuckets.keySet()) {
+            if (bucket < currentBucket) {
+                Set<String> digests = expiryBuckets.remove(bucket);
+                if (digests != null) {
+                    digests.forEach(revoked::remove);
+                    removed = true;
+                }
+            }
+        }
+        if (!removed) {
+            return;
+        }
+        TokenBloomFilter rebuilt = new TokenBloomFilter(expectedTokens, falsePositiveRate);
+        revoked.values().forEach(revocation -> rebuilt.add(revocation.hash()));
+        filter = rebuilt;
+        // Tokens revoked while the new filter was being filled may only be in the old one
+        revoked.values().forEach(revocation -> rebuilt.add(revocation.hash()));
     }
 }
@@ -0,0 +1,50 @@
+package be.ucll.service.auth;
+
+import be.ucll.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Per-user token generation stored on the users row. A token is valid only while its epoch claim
+// matches the user's current epoch, so "log out everywhere" is a single UPDATE that every node
+// observes once its cached copy expires (security.token-epoch.ttl-ms). Deleted users have no
+// epoch, which rejects their tokens the same way.
+@Service
+public class TokenEpochService {
+
+    private final UserRepository userRepository;
+    private final Cache<String, Optional<Long>> epochs;
+
+    public TokenEpochService(UserRepository userRepository,
+                             @Value("${security.token-epoch.ttl-ms:5000}") long ttlMillis,
+                             @Value("${security.token-epoch.cache-size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.epochs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public boolean isCurrent(VerifiedToken token) {
+        if (token.subject() == null) {
+            return false;
+        }
+        Optional<Long> current = epochs.get(token.subject(),
+                email -> Optional.ofNullable(userRepository.findTokenEpochByEmail(email)));
+        return current.isPresent() && current.get() == token.epoch();
+    }
+
+    // Invalidates every token issued to this user so far, on all nodes
+    public void revokeAll(String email) {
+        userRepository.incrementTokenEpoch(email);
+        epochs.invalidate(email);
+    }
+
+    public void forget(String email) {
+        epochs.invalidate(email);
+    }
+}
@@ -0,0 +1,47 @@
+package be.ucll.service.auth;
+
+import be.ucll.model.User;
+import be.ucll.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Keeps the principal of recently authenticated users so JwtAuthFilter does not query the users
+// table on every request. Cached entries are immutable copies, never the managed User entity.
+// Hit/miss counts are published as cache.* metrics with cache=userPrincipals.
+@Component
+public class UserPrincipalCache {
+
+    private final UserRepository userRepository;
+    private final Cache<String, UserDetails> principals;
+
+    public UserPrincipalCache(UserRepository userRepository, MeterRegistry meterRegistry,
+                              @Value("${security.principal-cache.ttl-ms:60000}") long ttlMillis,
+                              @Value("${security.principal-cache.size:10000}") long maximumSize) {
+        this.userRepository = userRepository;
+        this.principals = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, principals, "userPrincipals");
+    }
+
+    // Returns null for unknown users, like the repository lookup it replaces. Misses are not cached.
+    public UserDetails load(String email) {
+        return principals.get(email, key -> {
+            User user = userRepository.findByEmail(key);
+            return user == null ? null : org.springframework.security.core.userdetails.User.withUserDetails(user).build();
+        });
+    }
+
+    public void invalidate(String email) {
+        principals.invalidate(email);
+    }
+}
@@ -0,0 +1,19 @@
+package be.ucll.service.auth;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+// Result of a successful signature check, cached per token until it expires.
+public record VerifiedToken(String subject, Date expiration, Claims claims) {
+
+    // Epoch the token was issued under; tokens from before epochs existed count as epoch 0
+    public long epoch() {
+        Object epoch = claims.get(JwtService.EPOCH_CLAIM);
+        return epoch instanceof Number number ? number.longValue() : 0L;
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.before(new Date());
+    }
+}
@@ -0,0 +1,144 @@
+package be.ucll.service.export;
+
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.BatchFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Mutable state of one export job, shared between the worker thread and status requests.
+public class BatchExportJob {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, CANCELLED }
+
+    private final UUID id = UUID.randomUUID();
+    // Username of the submitter; only they can see, download or cancel the job
+    @JsonIgnore
+    private final String owner;
+    private final BatchFilter filter;
+    private final List<BatchCsvColumn> columns;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong rowsWritten = new AtomicLong();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long expectedRows;
+    private volatile Path file;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile Future<?> future;
+
+    public BatchExportJob(String owner, BatchFilter filter, List<BatchCsvColumn> columns) {
+        this.owner = owner;
+        this.filter = filter;
+        this.columns = columns;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public boolean isOwnedBy(String username) {
+        return owner.equals(username);
+    }
+
+    public BatchFilter getFilter() {
+        return filter;
+    }
+
+    public List<BatchCsvColumn> getColumns() {
+        return columns;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten.get();
+    }
+
+    public Long getExpectedRows() {
+        return expectedRows;
+    }
+
+    @JsonIgnore
+    public Path getFile() {
+        return file;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    // Progress in percent, or null while the number of rows is unknown.
+    public Double getProgress() {
+        if (status == Status.COMPLETED) {
+            return 100.0;
+        }
+        Long expected = expectedRows;
+        if (expected == null || expected <= 0) {
+            return null;
+        }
+        return Math.min(99.0, Math.round(rowsWritten.get() * 1000.0 / expected) / 10.0);
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    Future<?> getFuture() {
+        return future;
+    }
+
+    void started(Path file) {
+        this.file = file;
+        this.status = Status.RUNNING;
+    }
+
+    void expectRows(Long expectedRows) {
+        this.expectedRows = expectedRows;
+    }
+
+    void addRows(long rows) {
+        rowsWritten.addAndGet(rows);
+    }
+
+    void completed() {
+        finish(Status.COMPLETED, null);
+    }
+
+    void failed(String error) {
+        finish(Status.FAILED, error);
+    }
+
+    void cancelled() {
+        finish(Status.CANCELLED, null);
+    }
+
+    private void finish(Status status, String error) {
+        this.error = error;
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
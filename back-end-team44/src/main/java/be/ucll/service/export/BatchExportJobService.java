@@ -0,0 +1,174 @@
+package be.ucll.service.export;
+
+import be.ucll.model.Batch;
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.BatchCursor;
+import be.ucll.service.BatchFilter;
+import be.ucll.service.BatchPage;
+import be.ucll.service.BatchService;
+import be.ucll.service.BatchSort;
+import be.ucll.service.CSVService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+// Runs batch exports in the background on a small dedicated pool, so long exports never hold a
+// request thread. Rows are read in keyset pages and written gzip-compressed to a temp file, which
+// is kept for a while after completion so clients can download it in ranges and resume.
+// A job belongs to the user who submitted it; to anyone else it does not exist.
+@Service
+public class BatchExportJobService {
+    private static final Logger log = LoggerFactory.getLogger(BatchExportJobService.class);
+
+    private final BatchService batchService;
+    private final CSVService csvService;
+    private final int chunkSize;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor executor;
+    private final Map<UUID, BatchExportJob> jobs = new ConcurrentHashMap<>();
+
+    public BatchExportJobService(BatchService batchService, CSVService csvService,
+                                 @Value("${exports.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${exports.queue-capacity:10}") int queueCapacity,
+                                 @Value("${exports.chunk-size:1000}") int chunkSize,
+                                 @Value("${exports.retention-ms:3600000}") long retentionMillis) {
+        this.batchService = batchService;
+        this.csvService = csvService;
+        this.chunkSize = Math.min(chunkSize, BatchService.MAX_PAGE_SIZE);
+        this.retentionMillis = retentionMillis;
+
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "batch-export-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Throws RejectedExecutionException when all workers are busy and the queue is full.
+    public BatchExportJob submit(String owner, BatchFilter filter, List<BatchCsvColumn> columns) {
+        BatchExportJob job = new BatchExportJob(owner, filter, columns);
+        jobs.put(job.getId(), job);
+        try {
+            job.setFuture(executor.submit(() -> run(job)));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<BatchExportJob> getJob(String owner, UUID jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).filter(job -> job.isOwnedBy(owner));
+    }
+
+    public boolean cancel(String owner, UUID jobId) {
+        BatchExportJob job = jobs.get(jobId);
+        if (job == null || !job.isOwnedBy(owner) || !jobs.remove(jobId, job)) {
+            return false;
+        }
+        if (!job.isFinished()) {
+            job.cancelled();
+        }
+        if (job.getFuture() != null) {
+            job.getFuture().cancel(true);
+        }
+        deleteFile(job);
+        return true;
+    }
+
+    void run(BatchExportJob job) {
+        if (job.isFinished()) {
+            return;
+        }
+        try {
+            Path file = Files.createTempFile("batch-export-" + job.getId(), ".csv.gz");
+            job.started(file);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024), StandardCharsets.UTF_8), 64 * 1024)) {
+                csvService.writeHeader(job.getColumns(), writer);
+                BatchCursor cursor = null;
+                do {
+                    if (Thread.currentThread().isInterrupted() || job.isFinished()) {
+                        return;
+                    }
+                    BatchPage page = batchService.queryBatches(job.getFilter(), BatchSort.ACTUAL_START_TIME, true, cursor, chunkSize);
+                    if (page.total() != null) {
+                        job.expectRows(page.total());
+                    }
+                    for (Batch batch : page.items()) {
+                        csvService.writeRow(batch, job.getColumns(), writer);
+                    }
+                    job.addRows(page.items().size());
+                    cursor = BatchCursor.decode(page.nextCursor());
+                } while (cursor != null);
+            }
+            job.completed();
+        } catch (Exception e) {
+            if (!job.isFinished()) {
+                log.warn("Export job {} failed", job.getId(), e);
+                job.failed(e.getMessage());
+            }
+        } finally {
+            if (job.getStatus() != BatchExportJob.Status.COMPLETED) {
+                deleteFile(job);
+            }
+        }
+    }
+
+    // Finished jobs and their files are dropped once the retention period has passed.
+    @Scheduled(fixedDelayString = "${exports.cleanup-interval-ms:300000}")
+    public void evictExpiredJobs() {
+        Instant cutoff = Instant.now().minusMillis(retentionMillis);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt().isBefore(cutoff)) {
+                deleteFile(job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        jobs.values().forEach(BatchExportJobService::deleteFile);
+    }
+
+    private static void deleteFile(BatchExportJob job) {
+        Path file = job.getFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete export file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package be.ucll.service.export;
+
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.BatchFilter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Body of an export job submission. All fields are optional: no filters exports every batch,
+// no columns exports all of them. Dates bound actualStartTime and are both inclusive.
+public class BatchExportRequest {
+    private String executionStatus;
+    private String batchNumber;
+    private String productionOrderNumber;
+    private String recipeId;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private List<String> columns;
+
+    public String getExecutionStatus() {
+        return executionStatus;
+    }
+
+    public void setExecutionStatus(String executionStatus) {
+        this.executionStatus = executionStatus;
+    }
+
+    public String getBatchNumber() {
+        return batchNumber;
+    }
+
+    public void setBatchNumber(String batchNumber) {
+        this.batchNumber = batchNumber;
+    }
+
+    public String getProductionOrderNumber() {
+        return productionOrderNumber;
+    }
+
+    public void setProductionOrderNumber(String productionOrderNumber) {
+        this.productionOrderNumber = productionOrderNumber;
+    }
+
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    public void setRecipeId(String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDate startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDate endDate) {
+        this.endDate = endDate;
+    }
+
+    public List<String> getColumns() {
+        return columns;
+    }
+
+    public void setColumns(List<String> columns) {
+        this.columns = columns;
+    }
+
+    public BatchFilter toFilter() {
+        return new BatchFilter(executionStatus, batchNumber, productionOrderNumber, recipeId,
+                startDate == null ? null : startDate.atStartOfDay(),
+                endDate == null ? null : endDate.plusDays(1).atStartOfDay());
+    }
+
+    public List<BatchCsvColumn> toColumns() {
+        if (columns == null || columns.isEmpty()) {
+            return List.of(BatchCsvColumn.values());
+        }
+        return columns.stream().map(BatchCsvColumn::fromHeader).distinct().toList();
+    }
+}
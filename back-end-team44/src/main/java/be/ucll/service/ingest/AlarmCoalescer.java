@@ -0,0 +1,132 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Severity;
+
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Folds repeats of an alarm into one. The first alarm for a (productionStep, severity) opens a
+// window; repeats that arrive before it closes only raise its count and stretch its time range.
+// A closed window is handed to the sink as one CoalescedAlarm. With a window of 0 every alarm is
+// passed on as it arrives.
+public class AlarmCoalescer {
+
+    private final long windowMillis;
+    private final Consumer<CoalescedAlarm> sink;
+    private final Map<Key, Window> windows = new ConcurrentHashMap<>();
+
+    public AlarmCoalescer(long windowMillis, Consumer<CoalescedAlarm> sink) {
+        this.windowMillis = windowMillis;
+        this.sink = sink;
+    }
+
+    // Returns true when the alarm opened a window, false when it was folded into an open one.
+    public boolean offer(AlarmIngestRequest alarm, long nowMillis) {
+        if (windowMillis <= 0) {
+            sink.accept(new Window(alarm, nowMillis).close());
+            return true;
+        }
+        Key key = new Key(alarm.productionStep(), alarm.severity());
+        Window open = windows.get(key);
+        if (open != null && open.fold(alarm, nowMillis)) {
+            return false;
+        }
+        boolean[] opened = new boolean[1];
+        windows.compute(key, (k, current) -> {
+            if (current != null && current.fold(alarm, nowMillis)) {
+                return current;
+            }
+            if (current != null) {
+                emit(current);
+            }
+            opened[0] = true;
+            return new Window(alarm, nowMillis);
+        });
+        return opened[0];
+    }
+
+    // Hands every window that is past its end to the sink
+    public void closeExpired(long nowMillis) {
+        windows.forEach((key, window) -> {
+            if (window.isExpired(nowMillis) && windows.remove(key, window)) {
+                emit(window);
+            }
+        });
+    }
+
+    public void closeAll() {
+        windows.forEach((key, window) -> {
+            if (windows.remove(key, window)) {
+                emit(window);
+            }
+        });
+    }
+
+    public int openWindows() {
+        return windows.size();
+    }
+
+    private void emit(Window window) {
+        CoalescedAlarm alarm = window.close();
+        if (alarm != null) {
+            sink.accept(alarm);
+        }
+    }
+
+    private record Key(int productionStep, Severity severity) {
+    }
+
+    private final class Window {
+        private final long closesAt;
+        private final int productionStep;
+        private final Severity severity;
+        private final Set<UUID> batchIds = new LinkedHashSet<>();
+        private Date first;
+        private Date last;
+        private int count;
+        private boolean closed;
+
+        private Window(AlarmIngestRequest alarm, long nowMillis) {
+            this.closesAt = nowMillis + windowMillis;
+            this.productionStep = alarm.productionStep();
+            this.severity = alarm.severity();
+            this.first = alarm.startDate();
+            this.last = alarm.startDate();
+            this.count = 1;
+            this.batchIds.addAll(alarm.batchIds());
+        }
+
+        synchronized boolean fold(AlarmIngestRequest alarm, long nowMillis) {
+            if (closed || nowMillis >= closesAt) {
+                return false;
+            }
+            count++;
+            if (alarm.startDate().before(first)) {
+                first = alarm.startDate();
+            }
+            if (alarm.startDate().after(last)) {
+                last = alarm.startDate();
+            }
+            batchIds.addAll(alarm.batchIds());
+            return true;
+        }
+
+        boolean isExpired(long nowMillis) {
+            return nowMillis >= closesAt;
+        }
+
+        // Null when already closed, so a window is emitted once
+        synchronized CoalescedAlarm close() {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return new CoalescedAlarm(productionStep, severity, first, last, count, batchIds);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Severity;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+// One alarm as posted by the line. startDate defaults to the time it was received.
+public record AlarmIngestRequest(int productionStep, Date startDate, Severity severity, List<UUID> batchIds) {
+}
@@ -0,0 +1,221 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Alarm;
+import be.ucll.model.Batch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Write-behind ingestion of alarms. Requests only reserve room in a bounded buffer and return;
+// a single writer thread drains whatever has piled up and commits it as one transaction with
+// batched inserts. A flood of alarms therefore costs a few large transactions instead of one
+// each. Room is given back once a group is committed, so the capacity also bounds alarms that
+// are accepted but not yet stored. When it is used up, submit waits briefly and then rejects.
+// Repeats of the same alarm are first folded together by an AlarmCoalescer; an open window
+// holds one unit of room until it is written.
+@Service
+public class AlarmIngestService {
+    private static final Logger log = LoggerFactory.getLogger(AlarmIngestService.class);
+
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final ArrayBlockingQueue<CoalescedAlarm> buffer;
+    private final AlarmCoalescer coalescer;
+    private final Semaphore capacity;
+    private final int bufferCapacity;
+    private final int maxBatch;
+    private final long offerTimeoutMillis;
+    private final Thread writer;
+    private final Counter written;
+    private final Counter failed;
+    private final Counter rejected;
+    private final Counter coalesced;
+    private volatile boolean running = true;
+
+    public AlarmIngestService(PlatformTransactionManager transactionManager, EntityManager entityManager,
+                              JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                              @Value("${alarms.ingest.capacity:10000}") int capacity,
+                              @Value("${alarms.ingest.max-batch:500}") int maxBatch,
+                              @Value("${alarms.ingest.offer-timeout-ms:100}") long offerTimeoutMillis,
+                              @Value("${alarms.ingest.coalesce-window-ms:5000}") long coalesceWindowMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+        // Emitted windows already hold their room, so add never fails
+        this.coalescer = new AlarmCoalescer(coalesceWindowMillis, buffer::add);
+        this.capacity = new Semaphore(capacity);
+        this.bufferCapacity = capacity;
+        this.maxBatch = maxBatch;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writer = new Thread(this::drain, "alarm-writer");
+        this.writer.setDaemon(true);
+
+        Gauge.builder("alarms.ingest.buffered", buffer, ArrayBlockingQueue::size).register(meterRegistry);
+        this.written = meterRegistry.counter("alarms.ingest.written");
+        this.failed = meterRegistry.counter("alarms.ingest.failed");
+        this.rejected = meterRegistry.counter("alarms.ingest.rejected");
+        this.coalesced = meterRegistry.counter("alarms.ingest.coalesced");
+    }
+
+    @PostConstruct
+    public void start() {
+        alignSequence();
+        writer.start();
+    }
+
+    // Accepts all alarms or none. Throws RejectedExecutionException when the buffer stays full.
+    public int submit(List<AlarmIngestRequest> alarms) {
+        if (alarms.isEmpty()) {
+            return 0;
+        }
+        if (alarms.size() > bufferCapacity) {
+            throw new IllegalArgumentException("At most " + bufferCapacity + " alarms can be sent at once");
+        }
+        List<AlarmIngestRequest> valid = new ArrayList<>(alarms.size());
+        Date now = new Date();
+        for (AlarmIngestRequest alarm : alarms) {
+            if (alarm == null || alarm.severity() == null) {
+                throw new IllegalArgumentException("Severity is required");
+            }
+            valid.add(new AlarmIngestRequest(alarm.productionStep(),
+                    alarm.startDate() == null ? now : alarm.startDate(), alarm.severity(),
+                    alarm.batchIds() == null ? List.of() : alarm.batchIds()));
+        }
+
+        try {
+            if (!running || !capacity.tryAcquire(valid.size(), offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                rejected.increment(valid.size());
+                throw new RejectedExecutionException("Alarm buffer is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for buffer space");
+        }
+        long nowMillis = System.currentTimeMillis();
+        int folded = 0;
+        for (AlarmIngestRequest alarm : valid) {
+            if (!coalescer.offer(alarm, nowMillis)) {
+                folded++;
+            }
+        }
+        if (folded > 0) {
+            capacity.release(folded);
+            coalesced.increment(folded);
+        }
+        return valid.size();
+    }
+
+    public int buffered() {
+        return buffer.size();
+    }
+
+    public int openWindows() {
+        return coalescer.openWindows();
+    }
+
+    private void drain() {
+        List<CoalescedAlarm> group = new ArrayList<>(maxBatch);
+        while (running || !buffer.isEmpty()) {
+            try {
+                coalescer.closeExpired(System.currentTimeMillis());
+                CoalescedAlarm first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                buffer.drainTo(group, maxBatch - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Alarm writer failed on a group of {}", group.size(), e);
+            } finally {
+                capacity.release(group.size());
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<CoalescedAlarm> group) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(group));
+            written.increment(group.size());
+        } catch (RuntimeException e) {
+            // One bad alarm (e.g. an unknown batch id) must not take the others down with it
+            log.warn("Group commit of {} alarms failed, retrying one by one: {}", group.size(), e.getMessage());
+            for (CoalescedAlarm alarm : group) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(alarm)));
+                    written.increment();
+                } catch (RuntimeException single) {
+                    failed.increment();
+                    log.warn("Dropping alarm {}: {}", alarm, single.getMessage());
+                }
+            }
+        }
+    }
+
+    private void persist(List<CoalescedAlarm> group) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(maxBatch);
+        for (CoalescedAlarm coalescedAlarm : group) {
+            List<Batch> batches = new ArrayList<>(coalescedAlarm.batchIds().size());
+            coalescedAlarm.batchIds().forEach(id -> batches.add(entityManager.getReference(Batch.class, id)));
+            Alarm alarm = new Alarm(coalescedAlarm.productionStep(), coalescedAlarm.firstOccurrence(),
+                    coalescedAlarm.severity(), batches);
+            alarm.setLastOccurrence(coalescedAlarm.lastOccurrence());
+            alarm.setOccurrenceCount(coalescedAlarm.occurrenceCount());
+            entityManager.persist(alarm);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // Alarm ids used to come from an identity column. Move the sequence past the highest id so the
+    // pooled ranges handed out by Hibernate never collide with existing rows.
+    private void alignSequence() {
+        try {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())));
+            if (postgres) {
+                jdbcTemplate.query("SELECT setval('" + Alarm.ID_SEQUENCE + "', m.max_id + " + Alarm.ID_ALLOCATION_SIZE
+                        + ", false) FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM alarms) m, " + Alarm.ID_SEQUENCE
+                        + " s WHERE s.last_value - CASE WHEN s.is_called THEN 0 ELSE " + Alarm.ID_ALLOCATION_SIZE
+                        + " END < m.max_id", resultSet -> {
+                });
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not align {} with existing alarm ids: {}", Alarm.ID_SEQUENCE, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        coalescer.closeAll();
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,119 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Batch;
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.CSVService;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Upserts batches on batch_id with plain JDBC, bypassing the persistence context. On PostgreSQL
+// the rows are COPY'd into a temporary staging table and merged with one INSERT ... ON CONFLICT;
+// elsewhere (H2) a batched MERGE is used. Runs in the caller's transaction.
+@Component
+public class BatchBulkWriter {
+
+    // Table columns, in the order of BatchCsvColumn.values()
+    private static final List<String> COLUMNS = List.of("batch_id", "batch_number", "production_order_number",
+            "recipe_id", "planned_start_time", "actual_start_time", "planned_end_time", "actual_end_time",
+            "execution_status", "id", "name");
+    private static final String COLUMN_LIST = String.join(", ", COLUMNS);
+    private static final String PLACEHOLDERS = COLUMNS.stream().map(column -> "?").collect(Collectors.joining(", "));
+    private static final String UPDATE_SET = COLUMNS.stream().skip(1)
+            .map(column -> column + " = EXCLUDED." + column).collect(Collectors.joining(", "));
+
+    private static final String UPSERT_POSTGRES = "INSERT INTO batches (" + COLUMN_LIST + ") VALUES (" + PLACEHOLDERS
+            + ") ON CONFLICT (batch_id) DO UPDATE SET " + UPDATE_SET;
+    private static final String MERGE_STAGING_POSTGRES = "INSERT INTO batches (" + COLUMN_LIST + ") SELECT "
+            + COLUMN_LIST + " FROM batches_staging ON CONFLICT (batch_id) DO UPDATE SET " + UPDATE_SET;
+    private static final String MERGE_H2 = "MERGE INTO batches (" + COLUMN_LIST + ") KEY (batch_id) VALUES ("
+            + PLACEHOLDERS + ")";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final CSVService csvService;
+    private final boolean useCopy;
+    private volatile Boolean postgres;
+
+    public BatchBulkWriter(JdbcTemplate jdbcTemplate, CSVService csvService,
+                           @Value("${batches.ingest.use-copy:true}") boolean useCopy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = jdbcTemplate.getDataSource();
+        this.csvService = csvService;
+        this.useCopy = useCopy;
+    }
+
+    // Batches must have distinct ids
+    public void write(Collection<Batch> batches) {
+        if (batches.isEmpty()) {
+            return;
+        }
+        if (!isPostgres()) {
+            batchUpdate(MERGE_H2, batches);
+        } else if (useCopy) {
+            copy(batches);
+        } else {
+            batchUpdate(UPSERT_POSTGRES, batches);
+        }
+    }
+
+    private void batchUpdate(String sql, Collection<Batch> batches) {
+        List<Object[]> rows = new ArrayList<>(batches.size());
+        BatchCsvColumn[] columns = BatchCsvColumn.values();
+        for (Batch batch : batches) {
+            Object[] row = new Object[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                row[i] = columns[i].valueOf(batch);
+            }
+            rows.add(row);
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+    }
+
+    private void copy(Collection<Batch> batches) {
+        jdbcTemplate.execute("CREATE TEMP TABLE IF NOT EXISTS batches_staging "
+                + "(LIKE batches INCLUDING DEFAULTS) ON COMMIT DELETE ROWS");
+
+        StringWriter csv = new StringWriter(batches.size() * 160);
+        List<BatchCsvColumn> columns = List.of(BatchCsvColumn.values());
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            for (Batch batch : batches) {
+                csvService.writeRow(batch, columns, csv);
+            }
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                    "COPY batches_staging (" + COLUMN_LIST + ") FROM STDIN WITH (FORMAT csv)",
+                    new StringReader(csv.toString()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("COPY into batches_staging failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+        jdbcTemplate.update(MERGE_STAGING_POSTGRES);
+        jdbcTemplate.execute("TRUNCATE batches_staging");
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())));
+        }
+        return postgres;
+    }
+}
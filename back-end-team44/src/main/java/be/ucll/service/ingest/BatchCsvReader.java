@@ -0,0 +1,129 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Batch;
+import be.ucll.service.BatchCsvColumn;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads batches from RFC 4180 CSV whose first record names the columns, in the format the export
+// writes. Quoted fields may contain separators, doubled quotes and line breaks.
+public class BatchCsvReader {
+
+    private final Reader reader;
+    private final List<BatchCsvColumn> columns = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private int pushedBack = -2;
+
+    public BatchCsvReader(Reader reader) throws IOException {
+        this.reader = reader;
+        List<String> header = readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV input is empty");
+        }
+        for (String name : header) {
+            columns.add(BatchCsvColumn.fromHeader(name.trim()));
+        }
+    }
+
+    // Line on which the last record read started
+    public long getLine() {
+        return recordLine;
+    }
+
+    // Next batch, or null at the end of the input. Blank lines are skipped.
+    public Batch next() throws IOException {
+        List<String> values;
+        do {
+            values = readRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isEmpty());
+
+        if (values.size() != columns.size()) {
+            throw new IllegalArgumentException("Line " + recordLine + ": expected " + columns.size() + " fields but got "
+                    + values.size());
+        }
+        Batch batch = new Batch(null, null, null, null, null, null, null, null, null, null);
+        for (int i = 0; i < values.size(); i++) {
+            try {
+                columns.get(i).parseInto(batch, values.get(i));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Line " + recordLine + ": invalid " + columns.get(i).getHeader()
+                        + " '" + values.get(i) + "'");
+            }
+        }
+        return batch;
+    }
+
+    private List<String> readRecord() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> values = new ArrayList<>();
+        field.setLength(0);
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IllegalArgumentException("Line " + recordLine + ": unterminated quoted field");
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int next = read();
+                    if (next != '\n') {
+                        unread(next);
+                    }
+                }
+                if (c != -1) {
+                    line++;
+                }
+                values.add(field.toString());
+                return values;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+}
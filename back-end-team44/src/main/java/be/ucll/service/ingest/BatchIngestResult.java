@@ -0,0 +1,6 @@
+package be.ucll.service.ingest;
+
+// Outcome of one bulk upsert: records read, rows written (duplicates within a chunk count once)
+// and the number of chunk transactions committed.
+public record BatchIngestResult(long received, long written, int chunks, long durationMillis) {
+}
@@ -0,0 +1,142 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Batch;
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchSnapshot;
+import be.ucll.repository.BatchRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// Streams batches from NDJSON or CSV and upserts them on batch_id in chunks, one transaction per
+// chunk, so a failure part-way keeps the chunks already committed and a retry of the same input
+// is harmless. Within a chunk the last record for an id wins. The rows are written with plain JDBC,
+// past the entity listeners, so each chunk publishes the BatchChangedEvents they would have: the
+// JSON cache, KPI counters and search index then follow the ingest row by row once it commits.
+@Service
+public class BatchIngestService {
+
+    public enum Format { NDJSON, CSV }
+
+    private final BatchBulkWriter writer;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final BatchRepository batchRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+
+    public BatchIngestService(BatchBulkWriter writer, PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper, BatchRepository batchRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${batches.ingest.chunk-size:5000}") int chunkSize) {
+        this.writer = writer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.batchRepository = batchRepository;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchIngestResult ingest(InputStream in, Format format) throws IOException {
+        long start = System.nanoTime();
+        long received = 0;
+        long written = 0;
+        int chunks = 0;
+        Map<UUID, Batch> chunk = new LinkedHashMap<>();
+        try (RecordSource source = format == Format.CSV ? csv(in) : ndjson(in)) {
+            Batch batch;
+            while ((batch = source.next()) != null) {
+                received++;
+                if (batch.getBatchId() == null) {
+                    throw new IllegalArgumentException("Record " + received + " has no batch_id");
+                }
+                chunk.put(batch.getBatchId(), batch);
+                if (chunk.size() >= chunkSize) {
+                    written += flush(chunk);
+                    chunks++;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                written += flush(chunk);
+                chunks++;
+            }
+        }
+        return new BatchIngestResult(received, written, chunks, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // The events are delivered after the chunk's transaction commits, and not at all if it rolls back
+    private int flush(Map<UUID, Batch> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<UUID, BatchSnapshot> before = new HashMap<>();
+            for (BatchSnapshot snapshot : batchRepository.findSnapshotsByIds(chunk.keySet())) {
+                before.put(snapshot.batchId(), snapshot);
+            }
+            writer.write(chunk.values());
+            for (Batch batch : chunk.values()) {
+                eventPublisher.publishEvent(new BatchChangedEvent(before.get(batch.getBatchId()), BatchSnapshot.of(batch)));
+            }
+        });
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    private RecordSource csv(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BatchCsvReader csv = new BatchCsvReader(reader);
+        return new RecordSource() {
+            @Override
+            public Batch next() throws IOException {
+                return csv.next();
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private RecordSource ndjson(InputStream in) throws IOException {
+        MappingIterator<Batch> records = objectMapper.readerFor(Batch.class).readValues(in);
+        return new RecordSource() {
+            @Override
+            public Batch next() throws IOException {
+                try {
+                    return records.hasNextValue() ? records.nextValue() : null;
+                } catch (JsonProcessingException | RuntimeJsonMappingException e) {
+                    throw new IllegalArgumentException("Line " + records.getCurrentLocation().getLineNr()
+                            + ": invalid batch JSON");
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                records.close();
+            }
+        };
+    }
+
+    private interface RecordSource extends AutoCloseable {
+        Batch next() throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+}
@@ -0,0 +1,13 @@
+package be.ucll.service.ingest;
+
+import be.ucll.model.Severity;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.UUID;
+
+// What is stored for one coalescing window: the alarm seen occurrenceCount times between
+// firstOccurrence and lastOccurrence, linked to every batch any of the repeats named.
+public record CoalescedAlarm(int productionStep, Severity severity, Date firstOccurrence, Date lastOccurrence,
+                             int occurrenceCount, Collection<UUID> batchIds) {
+}
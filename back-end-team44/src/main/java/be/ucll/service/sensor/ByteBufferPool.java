@@ -0,0 +1,29 @@
+package be.ucll.service.sensor;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+// Reuses direct buffers across connections, keeping at most maxPooled idle ones. Only used from
+// the ingestion thread.
+class ByteBufferPool {
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+
+    ByteBufferPool(int bufferSize, int maxPooled) {
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    ByteBuffer acquire() {
+        ByteBuffer buffer = idle.poll();
+        return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    void release(ByteBuffer buffer) {
+        if (idle.size() < maxPooled) {
+            idle.push(buffer);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package be.ucll.service.sensor;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Compression of one chunk of a series as in Facebook's Gorilla: timestamps as delta-of-delta
+// in variable-width buckets, values as the XOR with the previous value, storing only the
+// meaningful bits. Regular readings shrink to a few bits per point. Decoding reads bits straight
+// from a (mapped) buffer and hands out primitives.
+final class GorillaCodec {
+
+    private GorillaCodec() {
+    }
+
+    static byte[] encode(long[] times, double[] values, int count) {
+        BitWriter out = new BitWriter(Math.max(32, count * 4));
+        out.write(times[0], 64);
+        out.write(Double.doubleToRawLongBits(values[0]), 64);
+        long previousTime = times[0];
+        long previousDelta = 0;
+        long previousBits = Double.doubleToRawLongBits(values[0]);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+
+        for (int i = 1; i < count; i++) {
+            long delta = times[i] - previousTime;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.write(0, 1);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+                out.write(0b10, 2);
+                out.write(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+                out.write(0b110, 3);
+                out.write(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+                out.write(0b1110, 4);
+                out.write(deltaOfDelta, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(deltaOfDelta, 64);
+            }
+            previousTime = times[i];
+            previousDelta = delta;
+
+            long bits = Double.doubleToRawLongBits(values[i]);
+            long xor = bits ^ previousBits;
+            if (xor == 0) {
+                out.write(0, 1);
+            } else {
+                int leading = Long.numberOfLeadingZeros(xor);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                    out.write(0b10, 2);
+                    out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int meaningful = 64 - leading - trailing;
+                    out.write(0b11, 2);
+                    out.write(leading, 6);
+                    out.write(meaningful - 1, 6);
+                    out.write(xor >>> trailing, meaningful);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previousBits = bits;
+        }
+        return out.toByteArray();
+    }
+
+    // Visits the points with from <= time < to of the count points encoded at offset
+    static void decode(ByteBuffer buffer, int offset, int count, long from, long to, SensorPointVisitor visitor) {
+        BitReader in = new BitReader(buffer, offset);
+        long time = in.read(64);
+        long bits = in.read(64);
+        if (time >= to) {
+            return;
+        }
+        if (time >= from) {
+            visitor.visit(time, Double.longBitsToDouble(bits));
+        }
+        long delta = 0;
+        int leading = 0;
+        int trailing = 0;
+
+        for (int i = 1; i < count; i++) {
+            long deltaOfDelta;
+            if (in.read(1) == 0) {
+                deltaOfDelta = 0;
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.readSigned(7);
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.readSigned(9);
+            } else if (in.read(1) == 0) {
+                deltaOfDelta = in.readSigned(12);
+            } else {
+                deltaOfDelta = in.read(64);
+            }
+            delta += deltaOfDelta;
+            time += delta;
+
+            if (in.read(1) == 1) {
+                if (in.read(1) == 1) {
+                    leading = (int) in.read(6);
+                    int meaningful = (int) in.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                bits ^= in.read(64 - leading - trailing) << trailing;
+            }
+
+            if (time >= to) {
+                return;
+            }
+            if (time >= from) {
+                visitor.visit(time, Double.longBitsToDouble(bits));
+            }
+        }
+    }
+
+    private static final class BitWriter {
+        private byte[] bytes;
+        private long bitCount;
+
+        private BitWriter(int initialBytes) {
+            this.bytes = new byte[initialBytes];
+        }
+
+        // Low count bits of value, most significant first
+        void write(long value, int count) {
+            while (count > 0) {
+                int index = (int) (bitCount >>> 3);
+                if (index == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int free = 8 - (int) (bitCount & 7);
+                int taken = Math.min(free, count);
+                int chunk = (int) (value >>> (count - taken)) & ((1 << taken) - 1);
+                bytes[index] |= (byte) (chunk << (free - taken));
+                bitCount += taken;
+                count -= taken;
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+        }
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private long bitPosition;
+
+        private BitReader(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.bitPosition = (long) offset << 3;
+        }
+
+        long read(int count) {
+            long value = 0;
+            while (count > 0) {
+                int current = buffer.get((int) (bitPosition >>> 3)) & 0xff;
+                int available = 8 - (int) (bitPosition & 7);
+                int taken = Math.min(available, count);
+                value = (value << taken) | ((current >>> (available - taken)) & ((1 << taken) - 1));
+                bitPosition += taken;
+                count -= taken;
+            }
+            return value;
+        }
+
+        long readSigned(int count) {
+            long value = read(count);
+            return (value << (64 - count)) >> (64 - count);
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package be.ucll.service.sensor;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+// Parses Influx line protocol straight from a ByteBuffer, e.g.
+//   sensor_data,equipment_name=Mixer\ 1,equipment_type=mixer,metric=temperature,type=PT100 value=21.5 1700000000000000000
+// Only absolute gets are used and numbers are parsed in place, so a line costs no allocation.
+// Series keys are looked up by their raw tag bytes in a cache sized for maxSeries; Strings are
+// only built the first time a series is seen, and past maxSeries each new key evicts one cached
+// key rather than the whole cache. With a metric tag the "value" or "measurement" field (else the
+// first numeric one) is the reading; without it every numeric field is a reading whose metric is
+// the field name. equipment_id is accepted in place of equipment_name. Not thread-safe.
+public final class LineProtocolParser {
+
+    public enum Result { POINTS, EMPTY, IGNORED, MALFORMED }
+
+    @FunctionalInterface
+    public interface PointSink {
+        void accept(SensorSeriesKey series, long timeMillis, double value);
+    }
+
+    private static final byte[] EQUIPMENT_NAME = bytes("equipment_name");
+    private static final byte[] EQUIPMENT_ID = bytes("equipment_id");
+    private static final byte[] EQUIPMENT_TYPE = bytes("equipment_type");
+    private static final byte[] METRIC = bytes("metric");
+    private static final byte[] TYPE = bytes("type");
+    private static final byte[] VALUE = bytes("value");
+    private static final byte[] MEASUREMENT = bytes("measurement");
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int DEFAULT_MAX_SERIES = 10_000;
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final byte[] measurement;
+    private final TimeUnit precision;
+
+    // Open-addressed cache of series keys by the hash of their encoded tag bytes, at most 3/4 full
+    private final long[] cacheHashes;
+    private final byte[][] cacheBytes;
+    private final SensorSeriesKey[] cacheKeys;
+    private final int cacheLimit;
+    private int cached;
+
+    // Tag value regions of the current line, -1 when absent
+    private int nameFrom, nameTo, equipmentTypeFrom, equipmentTypeTo, metricFrom, metricTo, typeFrom, typeTo;
+
+    public LineProtocolParser(String measurement, TimeUnit precision) {
+        this(measurement, precision, DEFAULT_MAX_SERIES);
+    }
+
+    public LineProtocolParser(String measurement, TimeUnit precision, int maxSeries) {
+        this.measurement = bytes(measurement);
+        this.precision = precision;
+        int size = Integer.highestOneBit(Math.max(16, maxSeries * 4 / 3) - 1) << 1;
+        this.cacheHashes = new long[size];
+        this.cacheBytes = new byte[size][];
+        this.cacheKeys = new SensorSeriesKey[size];
+        this.cacheLimit = size * 3 / 4;
+    }
+
+    // Parses the line in [start, end), without its line break
+    public Result parse(ByteBuffer buffer, int start, int end, PointSink sink) {
+        while (end > start && isWhitespace(buffer.get(end - 1))) {
+            end--;
+        }
+        while (start < end && isWhitespace(buffer.get(start))) {
+            start++;
+        }
+        if (start == end || buffer.get(start) == '#') {
+            return Result.EMPTY;
+        }
+
+        int seriesEnd = indexOf(buffer, start, end, (byte) ' ');
+        int measurementEnd = indexOf(buffer, start, seriesEnd, (byte) ',');
+        if (!regionEquals(buffer, start, measurementEnd, measurement)) {
+            return Result.IGNORED;
+        }
+        if (seriesEnd >= end || !readTags(buffer, measurementEnd + 1, seriesEnd) || nameFrom < 0) {
+            return Result.MALFORMED;
+        }
+
+        int fieldsStart = seriesEnd + 1;
+        int fieldsEnd = fieldsEnd(buffer, fieldsStart, end);
+        long timeMillis;
+        if (fieldsEnd < end) {
+            long timestamp = parseTimestamp(buffer, fieldsEnd + 1, end);
+            if (timestamp == Long.MIN_VALUE) {
+                return Result.MALFORMED;
+            }
+            timeMillis = precision.toMillis(timestamp);
+        } else {
+            timeMillis = System.currentTimeMillis();
+        }
+
+        return metricFrom >= 0
+                ? readSingleField(buffer, fieldsStart, fieldsEnd, timeMillis, sink)
+                : readEveryField(buffer, fieldsStart, fieldsEnd, timeMillis, sink);
+    }
+
+    private boolean readTags(ByteBuffer buffer, int from, int to) {
+        nameFrom = nameTo = equipmentTypeFrom = equipmentTypeTo = metricFrom = metricTo = typeFrom = typeTo = -1;
+        int position = from;
+        while (position < to) {
+            int pairEnd = indexOf(buffer, position, to, (byte) ',');
+            int equals = indexOf(buffer, position, pairEnd, (byte) '=');
+            if (equals == position || equals >= pairEnd - 1) {
+                return false;
+            }
+            if (regionEquals(buffer, position, equals, EQUIPMENT_NAME)
+                    || (nameFrom < 0 && regionEquals(buffer, position, equals, EQUIPMENT_ID))) {
+                nameFrom = equals + 1;
+                nameTo = pairEnd;
+            } else if (regionEquals(buffer, position, equals, EQUIPMENT_TYPE)) {
+                equipmentTypeFrom = equals + 1;
+                equipmentTypeTo = pairEnd;
+            } else if (regionEquals(buffer, position, equals, METRIC)) {
+                metricFrom = equals + 1;
+                metricTo = pairEnd;
+            } else if (regionEquals(buffer, position, equals, TYPE)) {
+                typeFrom = equals + 1;
+                typeTo = pairEnd;
+            }
+            position = pairEnd + 1;
+        }
+        return true;
+    }
+
+    private Result readSingleField(ByteBuffer buffer, int from, int to, long timeMillis, PointSink sink) {
+        double first = Double.NaN;
+        int position = from;
+        while (position < to) {
+            int pairEnd = fieldEnd(buffer, position, to);
+            int equals = indexOf(buffer, position, pairEnd, (byte) '=');
+            if (equals == position || equals >= pairEnd - 1) {
+                return Result.MALFORMED;
+            }
+            double value = parseNumber(buffer, equals + 1, pairEnd);
+            if (!Double.isNaN(value)) {
+                if (regionEquals(buffer, position, equals, VALUE) || regionEquals(buffer, position, equals, MEASUREMENT)) {
+                    sink.accept(series(buffer, metricFrom, metricTo), timeMillis, value);
+                    return Result.POINTS;
+                }
+                if (Double.isNaN(first)) {
+                    first = value;
+                }
+            }
+            position = pairEnd + 1;
+        }
+        if (Double.isNaN(first)) {
+            return Result.MALFORMED;
+        }
+        sink.accept(series(buffer, metricFrom, metricTo), timeMillis, first);
+        return Result.POINTS;
+    }
+
+    private Result readEveryField(ByteBuffer buffer, int from, int to, long timeMillis, PointSink sink) {
+        boolean any = false;
+        int position = from;
+        while (position < to) {
+            int pairEnd = fieldEnd(buffer, position, to);
+            int equals = indexOf(buffer, position, pairEnd, (byte) '=');
+            if (equals == position || equals >= pairEnd - 1) {
+                return Result.MALFORMED;
+            }
+            double value = parseNumber(buffer, equals + 1, pairEnd);
+            if (!Double.isNaN(value)) {
+                sink.accept(series(buffer, position, equals), timeMillis, value);
+                any = true;
+            }
+            position = pairEnd + 1;
+        }
+        return any ? Result.POINTS : Result.MALFORMED;
+    }
+
+    private SensorSeriesKey series(ByteBuffer buffer, int seriesMetricFrom, int seriesMetricTo) {
+        long hash = 0xcbf29ce484222325L;
+        hash = hash(buffer, nameFrom, nameTo, hash);
+        hash = hash(buffer, equipmentTypeFrom, equipmentTypeTo, hash);
+        hash = hash(buffer, seriesMetricFrom, seriesMetricTo, hash);
+        hash = hash(buffer, typeFrom, typeTo, hash);
+
+        int mask = cacheKeys.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (cacheBytes[slot] != null) {
+            if (cacheHashes[slot] == hash && cachedEquals(cacheBytes[slot], buffer, seriesMetricFrom, seriesMetricTo)) {
+                return cacheKeys[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (cached >= cacheLimit) {
+            // Full: drop the key at (or after) the home slot and probe again for a free slot
+            int home = (int) (hash ^ (hash >>> 32)) & mask;
+            int victim = home;
+            while (cacheBytes[victim] == null) {
+                victim = (victim + 1) & mask;
+            }
+            evict(victim);
+            slot = home;
+            while (cacheBytes[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        cached++;
+        SensorSeriesKey key = new SensorSeriesKey(text(buffer, nameFrom, nameTo),
+                text(buffer, equipmentTypeFrom, equipmentTypeTo), text(buffer, seriesMetricFrom, seriesMetricTo),
+                text(buffer, typeFrom, typeTo));
+        cacheHashes[slot] = hash;
+        cacheBytes[slot] = encode(buffer, seriesMetricFrom, seriesMetricTo);
+        cacheKeys[slot] = key;
+        return key;
+    }
+
+    // Linear-probing delete: later keys of the run that may live in the hole are shifted back,
+    // so no lookup stops early at it
+    private void evict(int slot) {
+        int mask = cacheKeys.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (cacheBytes[next] != null) {
+            long hash = cacheHashes[next];
+            int home = (int) (hash ^ (hash >>> 32)) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                cacheHashes[hole] = hash;
+                cacheBytes[hole] = cacheBytes[next];
+                cacheKeys[hole] = cacheKeys[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        cacheBytes[hole] = null;
+        cacheKeys[hole] = null;
+        cached--;
+    }
+
+    // Regions are encoded as their raw bytes, or 0x1E when absent, each followed by 0x1F
+    private static long hash(ByteBuffer buffer, int from, int to, long hash) {
+        if (from < 0) {
+            hash = (hash ^ 0x1E) * 0x100000001b3L;
+        } else {
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ (buffer.get(i) & 0xff)) * 0x100000001b3L;
+            }
+        }
+        return (hash ^ 0x1F) * 0x100000001b3L;
+    }
+
+    private byte[] encode(ByteBuffer buffer, int seriesMetricFrom, int seriesMetricTo) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        encode(buffer, nameFrom, nameTo, out);
+        encode(buffer, equipmentTypeFrom, equipmentTypeTo, out);
+        encode(buffer, seriesMetricFrom, seriesMetricTo, out);
+        encode(buffer, typeFrom, typeTo, out);
+        return out.toByteArray();
+    }
+
+    private static void encode(ByteBuffer buffer, int from, int to, ByteArrayOutputStream out) {
+        if (from < 0) {
+            out.write(0x1E);
+        } else {
+            for (int i = from; i < to; i++) {
+                out.write(buffer.get(i));
+            }
+        }
+        out.write(0x1F);
+    }
+
+    private boolean cachedEquals(byte[] encoded, ByteBuffer buffer, int seriesMetricFrom, int seriesMetricTo) {
+        int offset = 0;
+        offset = regionMatches(encoded, offset, buffer, nameFrom, nameTo);
+        offset = regionMatches(encoded, offset, buffer, equipmentTypeFrom, equipmentTypeTo);
+        offset = regionMatches(encoded, offset, buffer, seriesMetricFrom, seriesMetricTo);
+        offset = regionMatches(encoded, offset, buffer, typeFrom, typeTo);
+        return offset == encoded.length;
+    }
+
+    // Offset after the matched region in encoded, or a value past its end on mismatch
+    private static int regionMatches(byte[] encoded, int offset, ByteBuffer buffer, int from, int to) {
+        if (offset > encoded.length) {
+            return offset;
+        }
+        if (from < 0) {
+            return offset + 1 < encoded.length && encoded[offset] == 0x1E && encoded[offset + 1] == 0x1F
+                    ? offset + 2 : Integer.MAX_VALUE;
+        }
+        int length = to - from;
+        if (offset + length >= encoded.length || encoded[offset + length] != 0x1F) {
+            return Integer.MAX_VALUE;
+        }
+        for (int i = 0; i < length; i++) {
+            if (encoded[offset + i] != buffer.get(from + i)) {
+                return Integer.MAX_VALUE;
+            }
+        }
+        return offset + length + 1;
+    }
+
+    // Unescaped UTF-8 text of a tag value or field key, null when absent
+    private static String text(ByteBuffer buffer, int from, int to) {
+        if (from < 0) {
+            return null;
+        }
+        byte[] raw = new byte[to - from];
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            byte c = buffer.get(i);
+            if (c == '\\' && i + 1 < to) {
+                c = buffer.get(++i);
+            }
+            raw[length++] = c;
+        }
+        return new String(raw, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // Float, integer (i suffix) or unsigned (u suffix) field; NaN for strings, booleans and junk
+    static double parseNumber(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean digits = false;
+        boolean integral = true;
+        for (; i < to; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9) {
+                break;
+            }
+            digits = true;
+            if (significant < MAX_MANTISSA_DIGITS) {
+                mantissa = mantissa * 10 + d;
+                if (mantissa != 0) {
+                    significant++;
+                }
+            } else {
+                exponent++;
+            }
+        }
+        if (i < to && buffer.get(i) == '.') {
+            integral = false;
+            for (i++; i < to; i++) {
+                int d = buffer.get(i) - '0';
+                if (d < 0 || d > 9) {
+                    break;
+                }
+                digits = true;
+                if (significant < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + d;
+                    if (mantissa != 0) {
+                        significant++;
+                    }
+                    exponent--;
+                }
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+            integral = false;
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                negativeExponent = buffer.get(i) == '-';
+                i++;
+            }
+            int value = 0;
+            int start = i;
+            for (; i < to && buffer.get(i) >= '0' && buffer.get(i) <= '9'; i++) {
+                value = Math.min(value * 10 + buffer.get(i) - '0', 1000);
+            }
+            if (i == start) {
+                return Double.NaN;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        if (i < to && integral && (buffer.get(i) == 'i' || buffer.get(i) == 'u')) {
+            i++;
+        }
+        if (i != to) {
+            return Double.NaN;
+        }
+        double result = mantissa;
+        if (exponent > 0) {
+            result *= exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[exponent] : Math.pow(10, exponent);
+        } else if (exponent < 0) {
+            result /= -exponent < POWERS_OF_TEN.length ? POWERS_OF_TEN[-exponent] : Math.pow(10, -exponent);
+        }
+        return negative ? -result : result;
+    }
+
+    // Long.MIN_VALUE when not an integer
+    private static long parseTimestamp(ByteBuffer buffer, int from, int to) {
+        int i = from;
+        boolean negative = i < to && buffer.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == to) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int d = buffer.get(i) - '0';
+            if (d < 0 || d > 9 || value > (Long.MAX_VALUE - d) / 10) {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    // First unescaped b in [from, to), or to
+    private static int indexOf(ByteBuffer buffer, int from, int to, byte b) {
+        for (int i = from; i < to; i++) {
+            byte c = buffer.get(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == b) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    // End of the field set: the first unescaped space outside a quoted string value
+    private static int fieldsEnd(ByteBuffer buffer, int from, int to) {
+        boolean quoted = false;
+        for (int i = from; i < to; i++) {
+            byte c = buffer.get(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ' ' && !quoted) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static int fieldEnd(ByteBuffer buffer, int from, int to) {
+        boolean quoted = false;
+        for (int i = from; i < to; i++) {
+            byte c = buffer.get(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private static boolean regionEquals(ByteBuffer buffer, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (buffer.get(from + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte c) {
+        return c == ' ' || c == '\t' || c == '\r';
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,280 @@
+package be.ucll.service.sensor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Accepts sensor readings in Influx line protocol over TCP and UDP, one line per point set.
+// A single selector thread reads into pooled direct buffers, parses lines in place and hands
+// the points to SensorWriterPool. When a writer falls behind, TCP input waits for it (up to
+// offer-timeout-ms per point, which stops reading from the sockets and so slows the senders);
+// UDP input, which cannot be slowed down, is dropped. Disabled unless sensors.ingest.enabled.
+@Component
+@ConditionalOnProperty(name = "sensors.ingest.enabled", havingValue = "true")
+public class LineProtocolServer {
+    private static final Logger log = LoggerFactory.getLogger(LineProtocolServer.class);
+    private static final Map<String, TimeUnit> PRECISIONS = Map.of("ns", TimeUnit.NANOSECONDS,
+            "us", TimeUnit.MICROSECONDS, "ms", TimeUnit.MILLISECONDS, "s", TimeUnit.SECONDS);
+
+    private final int tcpPort;
+    private final int udpPort;
+    private final long offerTimeoutNanos;
+    private final LineProtocolParser parser;
+    private final SensorWriterPool writers;
+    private final ByteBufferPool buffers;
+    private final ByteBuffer datagram;
+    private final Counter points;
+    private final Counter dropped;
+    private final Counter malformed;
+    private final Counter ignored;
+    private final LineProtocolParser.PointSink blockingSink = this::offerWaiting;
+    private final LineProtocolParser.PointSink droppingSink = this::offerOrDrop;
+
+    private Selector selector;
+    private ServerSocketChannel tcp;
+    private DatagramChannel udp;
+    private Thread thread;
+    private volatile boolean running;
+
+    public LineProtocolServer(SensorStore store, MeterRegistry meterRegistry,
+                              @Value("${sensors.ingest.tcp-port:8094}") int tcpPort,
+                              @Value("${sensors.ingest.udp-port:8094}") int udpPort,
+                              @Value("${sensors.ingest.measurement:sensor_data}") String measurement,
+                              @Value("${sensors.ingest.precision:ns}") String precision,
+                              @Value("${sensors.ingest.writers:0}") int writerCount,
+                              @Value("${sensors.ingest.queue-capacity:65536}") int queueCapacity,
+                              @Value("${sensors.ingest.buffer-size:65536}") int bufferSize,
+                              @Value("${sensors.ingest.offer-timeout-ms:50}") long offerTimeoutMillis,
+                              @Value("${sensors.store.max-series:10000}") int maxSeries) {
+        TimeUnit unit = PRECISIONS.get(precision);
+        if (unit == null) {
+            throw new IllegalArgumentException("Unknown line protocol precision: " + precision);
+        }
+        this.tcpPort = tcpPort;
+        this.udpPort = udpPort;
+        this.offerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(offerTimeoutMillis);
+        this.parser = new LineProtocolParser(measurement, unit, maxSeries);
+        this.writers = new SensorWriterPool(store, meterRegistry.counter("sensors.ingest.failed"),
+                writerCount > 0 ? writerCount : Runtime.getRuntime().availableProcessors(), queueCapacity);
+        this.buffers = new ByteBufferPool(bufferSize, 64);
+        this.datagram = ByteBuffer.allocateDirect(bufferSize);
+        this.points = meterRegistry.counter("sensors.ingest.points");
+        this.dropped = meterRegistry.counter("sensors.ingest.dropped");
+        this.malformed = meterRegistry.counter("sensors.ingest.malformed");
+        this.ignored = meterRegistry.counter("sensors.ingest.ignored");
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        if (tcpPort >= 0) {
+            tcp = ServerSocketChannel.open();
+            tcp.bind(new InetSocketAddress(tcpPort));
+            tcp.configureBlocking(false);
+            tcp.register(selector, SelectionKey.OP_ACCEPT);
+        }
+        if (udpPort >= 0) {
+            udp = DatagramChannel.open();
+            udp.bind(new InetSocketAddress(udpPort));
+            udp.configureBlocking(false);
+            udp.register(selector, SelectionKey.OP_READ);
+        }
+        writers.start();
+        running = true;
+        thread = new Thread(this::loop, "sensor-ingest");
+        thread.setDaemon(true);
+        thread.start();
+        log.info("Line protocol ingestion listening on tcp {} udp {}", getTcpPort(), getUdpPort());
+    }
+
+    // Bound port, or -1 when disabled; useful when configured as 0
+    public int getTcpPort() {
+        return tcp == null ? -1 : tcp.socket().getLocalPort();
+    }
+
+    public int getUdpPort() {
+        return udp == null ? -1 : udp.socket().getLocalPort();
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select(500);
+                Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+                while (selected.hasNext()) {
+                    SelectionKey key = selected.next();
+                    selected.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.channel() == udp) {
+                        receive();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Line protocol ingestion error: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = tcp.accept();
+        if (channel != null) {
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ, new Connection(buffers.acquire()));
+        }
+    }
+
+    private void read(SelectionKey key) {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer buffer = connection.buffer;
+        int read;
+        try {
+            read = channel.read(buffer);
+        } catch (IOException e) {
+            read = -1;
+        }
+        if (read < 0) {
+            // A last line without a line break is still a line
+            buffer.flip();
+            if (!connection.skipping && buffer.hasRemaining()) {
+                parseLine(buffer, buffer.position(), buffer.limit(), blockingSink);
+            }
+            close(key, connection);
+            return;
+        }
+
+        buffer.flip();
+        int lineStart = buffer.position();
+        for (int i = lineStart; i < buffer.limit(); i++) {
+            if (buffer.get(i) == '\n') {
+                if (connection.skipping) {
+                    connection.skipping = false;
+                } else {
+                    parseLine(buffer, lineStart, i, blockingSink);
+                }
+                lineStart = i + 1;
+            }
+        }
+        buffer.position(lineStart);
+        if (lineStart == 0 && buffer.limit() == buffer.capacity()) {
+            // A line longer than the buffer: count it once and discard up to its end
+            if (!connection.skipping) {
+                malformed.increment();
+                connection.skipping = true;
+            }
+            buffer.clear();
+        } else {
+            buffer.compact();
+        }
+    }
+
+    private void receive() throws IOException {
+        while (true) {
+            datagram.clear();
+            if (udp.receive(datagram) == null) {
+                return;
+            }
+            datagram.flip();
+            int lineStart = 0;
+            int limit = datagram.limit();
+            for (int i = 0; i < limit; i++) {
+                if (datagram.get(i) == '\n') {
+                    parseLine(datagram, lineStart, i, droppingSink);
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < limit) {
+                parseLine(datagram, lineStart, limit, droppingSink);
+            }
+        }
+    }
+
+    private void parseLine(ByteBuffer buffer, int start, int end, LineProtocolParser.PointSink sink) {
+        switch (parser.parse(buffer, start, end, sink)) {
+            case MALFORMED -> malformed.increment();
+            case IGNORED -> ignored.increment();
+            default -> {
+            }
+        }
+    }
+
+    private void offerWaiting(SensorSeriesKey key, long timeMillis, double value) {
+        if (writers.offer(key, timeMillis, value)) {
+            points.increment();
+            return;
+        }
+        long deadline = System.nanoTime() + offerTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(10_000);
+            if (writers.offer(key, timeMillis, value)) {
+                points.increment();
+                return;
+            }
+        }
+        dropped.increment();
+    }
+
+    private void offerOrDrop(SensorSeriesKey key, long timeMillis, double value) {
+        if (writers.offer(key, timeMillis, value)) {
+            points.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void close(SelectionKey key, Connection connection) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignoredOnClose) {
+            // Nothing left to do with it
+        }
+        buffers.release(connection.buffer);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        selector.wakeup();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+        writers.shutdown(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private static final class Connection {
+        private final ByteBuffer buffer;
+        private boolean skipping;
+
+        private Connection(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package be.ucll.service.sensor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// One time partition of the sensor history: compressed chunks appended one after another into a
+// memory-mapped file. Each chunk starts with a fixed header (series, point count, time range and
+// value summary) followed by its GorillaCodec body. The header's magic number is written last,
+// so a chunk cut short by a crash reads as the end of the file. On open the headers are walked
+// to rebuild a sparse index of one entry per chunk, which queries scan instead of the file.
+final class SensorChunkFile implements AutoCloseable {
+
+    static final int HEADER_BYTES = 64;
+    private static final int MAGIC = 0x53434B32; // "SCK2", headers with mean and squared deviations
+    private static final int MIN_MAPPED_BYTES = 1 << 20;
+
+    private final Path path;
+    private final FileChannel channel;
+    private volatile MappedByteBuffer mapped;
+    private int writePosition;
+
+    // Sparse index, one entry per chunk; entries below indexSize are immutable
+    private int[] seriesIds = new int[64];
+    private int[] offsets = new int[64];
+    private long[] minTimes = new long[64];
+    private long[] maxTimes = new long[64];
+    private volatile int indexSize;
+
+    SensorChunkFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Chunk file too large: " + path);
+        }
+        this.mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_MAPPED_BYTES));
+        recover();
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    int sizeBytes() {
+        return writePosition;
+    }
+
+    private void recover() {
+        MappedByteBuffer buffer = mapped;
+        int position = 0;
+        while (position + HEADER_BYTES <= buffer.capacity() && buffer.getInt(position) == MAGIC) {
+            int bodyLength = buffer.getInt(position + 12);
+            if (position + HEADER_BYTES + bodyLength > buffer.capacity()) {
+                break;
+            }
+            addToIndex(buffer.getInt(position + 4), position, buffer.getLong(position + 16),
+                    buffer.getLong(position + 24));
+            position += HEADER_BYTES + bodyLength;
+        }
+        writePosition = position;
+    }
+
+    synchronized void append(int seriesId, long[] times, double[] values, int count) throws IOException {
+        // Welford, like SensorSummary: raw sums of squares lose the spread of large, close values
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double mean = 0;
+        double squaredDeviations = 0;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+            double delta = values[i] - mean;
+            mean += delta / (i + 1);
+            squaredDeviations += delta * (values[i] - mean);
+        }
+        byte[] body = GorillaCodec.encode(times, values, count);
+
+        long end = (long) writePosition + HEADER_BYTES + body.length;
+        if (end > Integer.MAX_VALUE) {
+            throw new IOException("Chunk file full: " + path);
+        }
+        MappedByteBuffer buffer = mapped;
+        if (end > buffer.capacity()) {
+            long grown = Math.min(Integer.MAX_VALUE, Math.max(end, (long) buffer.capacity() * 2));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, grown);
+            mapped = buffer;
+        }
+
+        int position = writePosition;
+        buffer.putInt(position + 4, seriesId);
+        buffer.putInt(position + 8, count);
+        buffer.putInt(position + 12, body.length);
+        buffer.putLong(position + 16, times[0]);
+        buffer.putLong(position + 24, times[count - 1]);
+        buffer.putDouble(position + 32, min);
+        buffer.putDouble(position + 40, max);
+        buffer.putDouble(position + 48, mean);
+        buffer.putDouble(position + 56, squaredDeviations);
+        buffer.put(position + HEADER_BYTES, body);
+        buffer.putInt(position, MAGIC);
+        writePosition = (int) end;
+        addToIndex(seriesId, position, times[0], times[count - 1]);
+    }
+
+    private synchronized void addToIndex(int seriesId, int offset, long minTime, long maxTime) {
+        int size = indexSize;
+        if (size == seriesIds.length) {
+            seriesIds = Arrays.copyOf(seriesIds, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+            minTimes = Arrays.copyOf(minTimes, size * 2);
+            maxTimes = Arrays.copyOf(maxTimes, size * 2);
+        }
+        seriesIds[size] = seriesId;
+        offsets[size] = offset;
+        minTimes[size] = minTime;
+        maxTimes[size] = maxTime;
+        indexSize = size + 1;
+    }
+
+    // Visits the points of the series in [from, to), chunk by chunk in append order
+    void scan(int seriesId, long from, long to, SensorPointVisitor visitor) {
+        ByteBuffer buffer;
+        int[] ids;
+        int[] chunkOffsets;
+        long[] mins;
+        long[] maxes;
+        int size;
+        synchronized (this) {
+            buffer = mapped;
+            ids = seriesIds;
+            chunkOffsets = offsets;
+            mins = minTimes;
+            maxes = maxTimes;
+            size = indexSize;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == seriesId && mins[i] < to && maxes[i] >= from) {
+                int offset = chunkOffsets[i];
+                GorillaCodec.decode(buffer, offset + HEADER_BYTES, buffer.getInt(offset + 8), from, to, visitor);
+            }
+        }
+    }
+
+    // Adds the series' points in [from, to) to the summary. Chunks wholly inside the range are
+    // taken from their header without decoding, unless the summary needs every value for its
+    // quantiles.
+    void summarise(int seriesId, long from, long to, SensorSummary summary) {
+        ByteBuffer buffer;
+        int[] ids;
+        int[] chunkOffsets;
+        long[] mins;
+        long[] maxes;
+        int size;
+        synchronized (this) {
+            buffer = mapped;
+            ids = seriesIds;
+            chunkOffsets = offsets;
+            mins = minTimes;
+            maxes = maxTimes;
+            size = indexSize;
+        }
+        for (int i = 0; i < size; i++) {
+            if (ids[i] != seriesId || mins[i] >= to || maxes[i] < from) {
+                continue;
+            }
+            int offset = chunkOffsets[i];
+            if (mins[i] >= from && maxes[i] < to && !summary.tracksQuantiles()) {
+                summary.addChunk(buffer.getInt(offset + 8), mins[i], maxes[i], buffer.getDouble(offset + 32),
+                        buffer.getDouble(offset + 40), buffer.getDouble(offset + 48), buffer.getDouble(offset + 56));
+            } else {
+                GorillaCodec.decode(buffer, offset + HEADER_BYTES, buffer.getInt(offset + 8), from, to, summary);
+            }
+        }
+    }
+
+    void force() {
+        mapped.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
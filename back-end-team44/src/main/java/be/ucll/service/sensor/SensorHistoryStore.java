@@ -0,0 +1,328 @@
+package be.ucll.service.sensor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Persistent history of sensor readings, for ranges that no longer fit in SensorStore's rings.
+// Points are gathered per series into open chunks of up to chunk-points and then compressed
+// and appended to the chunk file of their day (see SensorChunkFile). Open chunks are flushed
+// when full, when the day changes, periodically, and on shutdown; queries also read them, so
+// nothing written is missed. Series are numbered in series.tsv next to the chunk files.
+// Enabled with sensors.history.enabled.
+@Component
+@ConditionalOnProperty(name = "sensors.history.enabled", havingValue = "true")
+public class SensorHistoryStore {
+    private static final Logger log = LoggerFactory.getLogger(SensorHistoryStore.class);
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final long DAY_MILLIS = TimeUnit.DAYS.toMillis(1);
+    private static final String SERIES_FILE = "series.tsv";
+
+    private final Path directory;
+    private final int chunkPoints;
+    private final long flushAfterMillis;
+    private final Map<SensorSeriesKey, Integer> seriesIds = new ConcurrentHashMap<>();
+    private final List<SensorSeriesKey> seriesById = new ArrayList<>();
+    private final Map<Integer, OpenChunk> openChunks = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, SensorChunkFile> files = new ConcurrentSkipListMap<>();
+
+    public SensorHistoryStore(@Value("${sensors.history.dir:data/sensor-history}") String directory,
+                              @Value("${sensors.history.chunk-points:1024}") int chunkPoints,
+                              @Value("${sensors.history.flush-after-ms:60000}") long flushAfterMillis) {
+        this.directory = Path.of(directory);
+        this.chunkPoints = chunkPoints;
+        this.flushAfterMillis = flushAfterMillis;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        Path seriesFile = directory.resolve(SERIES_FILE);
+        if (Files.exists(seriesFile)) {
+            for (String line : Files.readAllLines(seriesFile, StandardCharsets.UTF_8)) {
+                if (!line.isEmpty()) {
+                    String[] parts = line.split("\t", -1);
+                    SensorSeriesKey key = new SensorSeriesKey(unescape(parts[0]), unescape(parts[1]),
+                            unescape(parts[2]), unescape(parts[3]));
+                    seriesIds.put(key, seriesById.size());
+                    seriesById.add(key);
+                }
+            }
+        }
+        try (DirectoryStream<Path> chunkFiles = Files.newDirectoryStream(directory, "sensors-*.chunks")) {
+            for (Path file : chunkFiles) {
+                String name = file.getFileName().toString();
+                LocalDate day = LocalDate.parse(name.substring(8, 16), DAY);
+                files.put(day.toEpochDay(), new SensorChunkFile(file));
+            }
+        }
+        log.info("Sensor history in {}: {} series, {} day files", directory.toAbsolutePath(), seriesById.size(),
+                files.size());
+    }
+
+    public void append(SensorSeriesKey key, long timeMillis, double value) {
+        int seriesId = seriesId(key);
+        OpenChunk chunk = openChunks.computeIfAbsent(seriesId, id -> new OpenChunk(chunkPoints));
+        synchronized (chunk) {
+            long day = Math.floorDiv(timeMillis, DAY_MILLIS);
+            if (chunk.count > 0 && (day != chunk.day || timeMillis < chunk.times[chunk.count - 1])) {
+                flush(seriesId, chunk);
+            }
+            if (chunk.count == 0) {
+                chunk.day = day;
+                chunk.openedAt = System.currentTimeMillis();
+            }
+            chunk.times[chunk.count] = timeMillis;
+            chunk.values[chunk.count] = value;
+            chunk.count++;
+            if (chunk.count == chunkPoints) {
+                flush(seriesId, chunk);
+            }
+        }
+    }
+
+    // Points of every matching series in [from, to), oldest first, at most limit per series
+    public List<SensorSeriesReadings> query(SensorSeriesFilter filter, Instant from, Instant to, int limit) {
+        if (limit < 1 || limit > SensorStore.MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + SensorStore.MAX_LIMIT);
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        List<SensorSeriesReadings> result = new ArrayList<>();
+        for (SensorSeriesKey key : matching(filter)) {
+            Collector collector = new Collector(limit);
+            int seriesId = seriesIds.get(key);
+            forEachSource(seriesId, fromMillis, toMillis,
+                    file -> file.scan(seriesId, fromMillis, toMillis, collector), collector);
+            if (collector.count > 0) {
+                result.add(collector.toReadings(key));
+            }
+        }
+        return result;
+    }
+
+    // Percentiles need every point decoded; without them whole chunks are read from their headers
+    public List<SensorStatistics> statistics(SensorSeriesFilter filter, Instant from, Instant to, double[] quantiles) {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        List<SensorStatistics> result = new ArrayList<>();
+        for (SensorSeriesKey key : matching(filter)) {
+            SensorSummary summary = new SensorSummary(quantiles.length > 0);
+            int seriesId = seriesIds.get(key);
+            forEachSource(seriesId, fromMillis, toMillis,
+                    file -> file.summarise(seriesId, fromMillis, toMillis, summary), summary);
+            result.add(summary.toStatistics(key, quantiles));
+        }
+        return result;
+    }
+
+    // Day files overlapping the range in order, then the open chunk
+    private void forEachSource(int seriesId, long from, long to, Consumer<SensorChunkFile> fileAction,
+                               SensorPointVisitor openChunkVisitor) {
+        long firstDay = from == Long.MIN_VALUE ? Long.MIN_VALUE : Math.floorDiv(from, DAY_MILLIS);
+        long lastDay = to == Long.MAX_VALUE ? Long.MAX_VALUE : Math.floorDiv(to - 1, DAY_MILLIS);
+        for (SensorChunkFile file : files.subMap(firstDay, true, lastDay, true).values()) {
+            fileAction.accept(file);
+        }
+        OpenChunk chunk = openChunks.get(seriesId);
+        if (chunk != null) {
+            synchronized (chunk) {
+                for (int i = 0; i < chunk.count; i++) {
+                    if (chunk.times[i] >= from && chunk.times[i] < to) {
+                        openChunkVisitor.visit(chunk.times[i], chunk.values[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private List<SensorSeriesKey> matching(SensorSeriesFilter filter) {
+        List<SensorSeriesKey> keys = new ArrayList<>();
+        for (SensorSeriesKey key : seriesIds.keySet()) {
+            if (filter.matches(key)) {
+                keys.add(key);
+            }
+        }
+        keys.sort(SensorStore.SERIES_ORDER);
+        return keys;
+    }
+
+    private int seriesId(SensorSeriesKey key) {
+        Integer id = seriesIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        synchronized (seriesById) {
+            id = seriesIds.get(key);
+            if (id == null) {
+                id = seriesById.size();
+                String line = escape(key.equipmentName()) + '\t' + escape(key.equipmentType()) + '\t'
+                        + escape(key.metric()) + '\t' + escape(key.type()) + '\n';
+                try {
+                    Files.writeString(directory.resolve(SERIES_FILE), line, StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.SYNC);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                seriesById.add(key);
+                seriesIds.put(key, id);
+            }
+            return id;
+        }
+    }
+
+    // Caller holds the chunk's lock
+    private void flush(int seriesId, OpenChunk chunk) {
+        if (chunk.count == 0) {
+            return;
+        }
+        try {
+            file(chunk.day).append(seriesId, chunk.times, chunk.values, chunk.count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunk.count = 0;
+    }
+
+    private SensorChunkFile file(long day) {
+        return files.computeIfAbsent(day, d -> {
+            try {
+                return new SensorChunkFile(directory.resolve("sensors-" + LocalDate.ofEpochDay(d).format(DAY) + ".chunks"));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${sensors.history.flush-interval-ms:10000}")
+    public void flushIdle() {
+        long now = System.currentTimeMillis();
+        openChunks.forEach((seriesId, chunk) -> {
+            synchronized (chunk) {
+                if (chunk.count > 0 && now - chunk.openedAt >= flushAfterMillis) {
+                    flush(seriesId, chunk);
+                }
+            }
+        });
+        for (SensorChunkFile file : files.values()) {
+            file.force();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        openChunks.forEach((seriesId, chunk) -> {
+            synchronized (chunk) {
+                flush(seriesId, chunk);
+            }
+        });
+        for (SensorChunkFile file : files.values()) {
+            file.close();
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "\\N";
+        }
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\N")) {
+            return null;
+        }
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static final class OpenChunk {
+        private final long[] times;
+        private final double[] values;
+        private int count;
+        private long day;
+        private long openedAt;
+
+        private OpenChunk(int capacity) {
+            this.times = new long[capacity];
+            this.values = new double[capacity];
+        }
+    }
+
+    // Keeps the newest limit points seen, in a ring; points arrive oldest first
+    private static final class Collector implements SensorPointVisitor {
+        private final int limit;
+        private long[] times;
+        private double[] values;
+        private int count;
+        // Slot of the oldest point once the ring is full
+        private int head;
+
+        private Collector(int limit) {
+            this.limit = limit;
+            this.times = new long[Math.min(16, limit)];
+            this.values = new double[times.length];
+        }
+
+        @Override
+        public void visit(long timeMillis, double value) {
+            if (count == limit) {
+                times[head] = timeMillis;
+                values[head] = value;
+                head = head + 1 == limit ? 0 : head + 1;
+                return;
+            }
+            if (count == times.length) {
+                times = Arrays.copyOf(times, Math.min(limit, count * 2));
+                values = Arrays.copyOf(values, times.length);
+            }
+            times[count] = timeMillis;
+            values[count] = value;
+            count++;
+        }
+
+        private SensorSeriesReadings toReadings(SensorSeriesKey key) {
+            long[] orderedTimes = new long[count];
+            double[] orderedValues = new double[count];
+            System.arraycopy(times, head, orderedTimes, 0, count - head);
+            System.arraycopy(times, 0, orderedTimes, count - head, head);
+            System.arraycopy(values, head, orderedValues, 0, count - head);
+            System.arraycopy(values, 0, orderedValues, count - head, head);
+            return new SensorSeriesReadings(key, orderedTimes, orderedValues);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package be.ucll.service.sensor;
+
+// Receives points of one series in time order, as primitives.
+@FunctionalInterface
+public interface SensorPointVisitor {
+    void visit(long timeMillis, double value);
+}
@@ -0,0 +1,112 @@
+package be.ucll.service.sensor;
+
+import java.util.Arrays;
+
+// Mergeable quantile sketch with relative error (the DDSketch scheme): every value falls in a
+// logarithmic bucket whose width is a fixed fraction of its magnitude, so any quantile is known to
+// within that fraction of its true value. Merging two sketches adds their bucket counts, which
+// gives exactly the sketch of the combined values.
+final class SensorQuantileSketch {
+    static final double RELATIVE_ACCURACY = 0.01;
+
+    // Values closer to zero than this are counted as zero
+    private static final double MIN_MAGNITUDE = 1e-9;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+
+    void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > MIN_MAGNITUDE) {
+            positive.add(index(value), 1);
+        } else if (value < -MIN_MAGNITUDE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+    }
+
+    void merge(SensorQuantileSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    long count() {
+        return count;
+    }
+
+    // Value at rank q * (count - 1), NaN when empty
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        long seen = 0;
+        // Most negative first: the largest magnitudes of the negative side
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    // Middle of bucket index, at most RELATIVE_ACCURACY away from every value in it
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    // Dense counts for the bucket indexes offset .. offset + counts.length - 1
+    private static final class Buckets {
+        private long[] counts = new long[0];
+        private int offset;
+
+        private void add(int index, long n) {
+            if (counts.length == 0) {
+                counts = new long[8];
+                offset = index - 4;
+            } else if (index < offset) {
+                int grow = Math.max(offset - index, counts.length / 2);
+                long[] grown = new long[counts.length + grow];
+                System.arraycopy(counts, 0, grown, grow, counts.length);
+                counts = grown;
+                offset -= grow;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length + counts.length / 2));
+            }
+            counts[index - offset] += n;
+        }
+
+        private void merge(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package be.ucll.service.sensor;
+
+import java.time.Instant;
+
+// One point of one series, as written and as returned by the latest-value query.
+public record SensorReading(String equipmentName, String equipmentType, String metric, String type, Instant time,
+                            double value) {
+
+    public SensorSeriesKey series() {
+        return new SensorSeriesKey(equipmentName, equipmentType, metric, type);
+    }
+
+    public static SensorReading of(SensorSeriesKey series, long timeMillis, double value) {
+        return new SensorReading(series.equipmentName(), series.equipmentType(), series.metric(), series.type(),
+                Instant.ofEpochMilli(timeMillis), value);
+    }
+}
@@ -0,0 +1,108 @@
+package be.ucll.service.sensor;
+
+import java.util.Arrays;
+
+// Ring of the most recent points of one series, kept in two primitive arrays. Points must arrive
+// in time order; one at the same timestamp as the newest replaces it, and older ones are refused
+// so the ring stays sorted for binary search. The arrays start small and double until they reach
+// capacity (16 bytes per point), so a series that only ever sends a few points stays small.
+class SensorSeries {
+    static final int INITIAL_CAPACITY = 64;
+
+    private final int capacity;
+    private long[] timestamps;
+    private double[] values;
+    private int start;
+    private int size;
+
+    SensorSeries(int capacity) {
+        this.capacity = capacity;
+        this.timestamps = new long[Math.min(capacity, INITIAL_CAPACITY)];
+        this.values = new double[timestamps.length];
+    }
+
+    enum Append { APPENDED, REPLACED, REFUSED }
+
+    // REFUSED when the point is older than the newest one, REPLACED when it has the same timestamp
+    synchronized Append append(long timestamp, double value) {
+        if (size > 0) {
+            int newest = physical(size - 1);
+            if (timestamp < timestamps[newest]) {
+                return Append.REFUSED;
+            }
+            if (timestamp == timestamps[newest]) {
+                values[newest] = value;
+                return Append.REPLACED;
+            }
+        }
+        if (size == timestamps.length && size < capacity) {
+            grow();
+        }
+        int slot;
+        if (size < timestamps.length) {
+            slot = physical(size);
+            size++;
+        } else {
+            slot = start;
+            start = (start + 1) % timestamps.length;
+        }
+        timestamps[slot] = timestamp;
+        values[slot] = value;
+        return Append.APPENDED;
+    }
+
+    // The newest points with from <= timestamp < to, at most limit of them
+    synchronized SensorSeriesReadings range(SensorSeriesKey key, long from, long to, int limit) {
+        int first = lowerBound(from);
+        int end = lowerBound(to);
+        first = Math.max(first, end - limit);
+        int count = Math.max(0, end - first);
+        long[] rangeTimestamps = new long[count];
+        double[] rangeValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            int slot = physical(first + i);
+            rangeTimestamps[i] = timestamps[slot];
+            rangeValues[i] = values[slot];
+        }
+        return new SensorSeriesReadings(key, rangeTimestamps, rangeValues);
+    }
+
+    synchronized SensorReading latest(SensorSeriesKey key) {
+        if (size == 0) {
+            return null;
+        }
+        int newest = physical(size - 1);
+        return SensorReading.of(key, timestamps[newest], values[newest]);
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Only called while the ring is not yet full, so start is still 0
+    private void grow() {
+        int length = (int) Math.min(capacity, timestamps.length * 2L);
+        timestamps = Arrays.copyOf(timestamps, length);
+        values = Arrays.copyOf(values, length);
+    }
+
+    // Logical index of the first point at or after timestamp
+    private int lowerBound(long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[physical(mid)] < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int physical(int index) {
+        int slot = start + index;
+        return slot >= timestamps.length ? slot - timestamps.length : slot;
+    }
+}
@@ -0,0 +1,16 @@
+package be.ucll.service.sensor;
+
+// Selects series by tag; null tags match anything.
+public record SensorSeriesFilter(String equipmentName, String equipmentType, String metric, String type) {
+
+    public static SensorSeriesFilter none() {
+        return new SensorSeriesFilter(null, null, null, null);
+    }
+
+    public boolean matches(SensorSeriesKey key) {
+        return (equipmentName == null || equipmentName.equals(key.equipmentName()))
+                && (equipmentType == null || equipmentType.equals(key.equipmentType()))
+                && (metric == null || metric.equals(key.metric()))
+                && (type == null || type.equals(key.type()));
+    }
+}
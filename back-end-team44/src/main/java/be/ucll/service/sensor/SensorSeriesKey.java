@@ -0,0 +1,5 @@
+package be.ucll.service.sensor;
+
+// Tags of the sensor_data measurement that identify one series.
+public record SensorSeriesKey(String equipmentName, String equipmentType, String metric, String type) {
+}
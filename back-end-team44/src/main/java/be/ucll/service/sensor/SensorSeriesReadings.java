@@ -0,0 +1,5 @@
+package be.ucll.service.sensor;
+
+// Points of one series in time order, as parallel arrays of epoch millis and values.
+public record SensorSeriesReadings(SensorSeriesKey series, long[] timestamps, double[] values) {
+}
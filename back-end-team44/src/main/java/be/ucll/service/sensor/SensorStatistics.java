@@ -0,0 +1,11 @@
+package be.ucll.service.sensor;
+
+import java.time.Instant;
+import java.util.Map;
+
+// Aggregates of one series over a range, as the MCP server's get_sensor_statistics reports them,
+// plus the requested percentiles. Empty series have count 0 and NaN aggregates.
+public record SensorStatistics(SensorSeriesKey series, long count, double min, double max, double mean,
+                               double standardDeviation, Instant firstTime, Instant lastTime,
+                               Map<String, Double> percentiles) {
+}
@@ -0,0 +1,143 @@
+package be.ucll.service.sensor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Statistics of recent sensor readings, kept up to date on ingest instead of computed from the
+// raw points per request. Every series has two rings of time buckets, each bucket a SensorSummary
+// with a quantile sketch: fine buckets (bucket-ms) over the last recent-ms, and rollups
+// (rollup-ms) over the whole retention. A query merges the fine buckets when its window starts
+// inside them and the rollups otherwise, and is widened to whole buckets of the ring it uses.
+// Memory: a series holds at most recent/bucket + retention/rollup summaries, 84 with the
+// defaults, and only for buckets that received points. A summary whose readings span a few
+// percent has a sketch of a few dozen buckets, about 0.5 KB all told, so roughly 40 KB per series
+// that reports all day: 400 MB at the store's default of 10000 series, far less for series that
+// report rarely. max-series defaults to the store's, so every series the store accepts is tracked;
+// set lower, series past it are not (sensors.statistics.rejected-series counts them).
+@Component
+public class SensorStatisticsService {
+    private final Map<SensorSeriesKey, Series> series = new ConcurrentHashMap<>();
+    private final long bucketMillis;
+    private final int recentBuckets;
+    private final long rollupMillis;
+    private final int rollupBuckets;
+    private final int maxSeries;
+    private final Counter rejectedSeries;
+
+    public SensorStatisticsService(MeterRegistry meterRegistry,
+                                   @Value("${sensors.statistics.bucket-ms:60000}") long bucketMillis,
+                                   @Value("${sensors.statistics.recent-ms:3600000}") long recentMillis,
+                                   @Value("${sensors.statistics.rollup-ms:3600000}") long rollupMillis,
+                                   @Value("${sensors.statistics.retention-ms:86400000}") long retentionMillis,
+                                   @Value("${sensors.statistics.max-series:${sensors.store.max-series:10000}}") int maxSeries) {
+        this.bucketMillis = bucketMillis;
+        this.recentBuckets = (int) Math.max(1, recentMillis / bucketMillis);
+        this.rollupMillis = rollupMillis;
+        this.rollupBuckets = (int) Math.max(1, retentionMillis / rollupMillis);
+        this.maxSeries = maxSeries;
+        Gauge.builder("sensors.statistics.series", series, Map::size).register(meterRegistry);
+        this.rejectedSeries = meterRegistry.counter("sensors.statistics.rejected-series");
+    }
+
+    // Called by SensorStore for every accepted point
+    public void record(SensorSeriesKey key, long timeMillis, double value) {
+        Series target = series.get(key);
+        if (target == null) {
+            if (series.size() >= maxSeries) {
+                rejectedSeries.increment();
+                return;
+            }
+            target = series.computeIfAbsent(key, k -> new Series(new Ring(bucketMillis, recentBuckets),
+                    new Ring(rollupMillis, rollupBuckets)));
+        }
+        synchronized (target) {
+            target.recent.record(timeMillis, value);
+            target.rollups.record(timeMillis, value);
+        }
+    }
+
+    // from inclusive, to exclusive, both widened to bucket boundaries; null means unbounded
+    public List<SensorStatistics> statistics(SensorSeriesFilter filter, Instant from, Instant to, double[] quantiles) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Start must not be after end");
+        }
+        List<SensorSeriesKey> keys = new ArrayList<>();
+        for (SensorSeriesKey key : series.keySet()) {
+            if (filter.matches(key)) {
+                keys.add(key);
+            }
+        }
+        keys.sort(SensorStore.SERIES_ORDER);
+
+        List<SensorStatistics> result = new ArrayList<>();
+        for (SensorSeriesKey key : keys) {
+            SensorSummary summary = new SensorSummary(true);
+            Series target = series.get(key);
+            synchronized (target) {
+                if (target.recent.newest == Long.MIN_VALUE) {
+                    continue;
+                }
+                Ring ring = target.recent.covers(from) ? target.recent : target.rollups;
+                ring.mergeInto(summary, from, to);
+            }
+            result.add(summary.toStatistics(key, quantiles));
+        }
+        return result;
+    }
+
+    private record Series(Ring recent, Ring rollups) {
+    }
+
+    // Buckets of width millis, bucket b in slot b mod count
+    private static final class Ring {
+        private final long width;
+        private final long[] starts;
+        private final SensorSummary[] summaries;
+        private long newest = Long.MIN_VALUE;
+
+        private Ring(long width, int count) {
+            this.width = width;
+            this.starts = new long[count];
+            this.summaries = new SensorSummary[count];
+        }
+
+        private void record(long timeMillis, double value) {
+            long bucket = Math.floorDiv(timeMillis, width);
+            int slot = (int) Math.floorMod(bucket, (long) starts.length);
+            if (summaries[slot] == null || starts[slot] != bucket) {
+                if (summaries[slot] != null && starts[slot] > bucket) {
+                    return; // older than the ring reaches
+                }
+                starts[slot] = bucket;
+                summaries[slot] = new SensorSummary(true);
+            }
+            summaries[slot].visit(timeMillis, value);
+            newest = Math.max(newest, bucket);
+        }
+
+        private boolean covers(Instant from) {
+            return from != null && Math.floorDiv(from.toEpochMilli(), width) > newest - starts.length;
+        }
+
+        private void mergeInto(SensorSummary summary, Instant from, Instant to) {
+            long last = to == null ? newest : Math.min(newest, Math.floorDiv(to.toEpochMilli() - 1, width));
+            long first = Math.max(last - starts.length + 1,
+                    from == null ? Long.MIN_VALUE : Math.floorDiv(from.toEpochMilli(), width));
+            for (long bucket = first; bucket <= last; bucket++) {
+                int slot = (int) Math.floorMod(bucket, (long) starts.length);
+                if (summaries[slot] != null && starts[slot] == bucket) {
+                    summary.merge(summaries[slot]);
+                }
+            }
+        }
+    }
+}
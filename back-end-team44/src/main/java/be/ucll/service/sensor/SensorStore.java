@@ -0,0 +1,151 @@
+package be.ucll.service.sensor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// In-memory store of recent equipment sensor readings, one ring per series (see SensorSeries).
+// Serves the same two questions as the MCP server's query_sensor_readings and
+// get_latest_readings tools: the points of matching series in a time range, and the newest point
+// of each matching series. A full series costs 16 bytes per point, about 690 KB at the default
+// 43200 points; rings grow with their series, so the heap follows the points actually received
+// rather than max-series * points-per-series (which would be about 6.9 GB at the defaults).
+@Component
+public class SensorStore {
+    public static final int MAX_LIMIT = 10_000;
+
+    static final Comparator<SensorSeriesKey> SERIES_ORDER = Comparator
+            .comparing(SensorSeriesKey::equipmentName, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SensorSeriesKey::metric, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SensorSeriesKey::equipmentType, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(SensorSeriesKey::type, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Map<SensorSeriesKey, SensorSeries> series = new ConcurrentHashMap<>();
+    private final int pointsPerSeries;
+    private final int maxSeries;
+    private final Counter outOfOrder;
+    private final Counter rejectedSeries;
+    private SensorHistoryStore history;
+    private SensorStatisticsService statistics;
+
+    public SensorStore(MeterRegistry meterRegistry,
+                       @Value("${sensors.store.points-per-series:43200}") int pointsPerSeries,
+                       @Value("${sensors.store.max-series:10000}") int maxSeries) {
+        this.pointsPerSeries = pointsPerSeries;
+        this.maxSeries = maxSeries;
+        Gauge.builder("sensors.store.series", series, Map::size).register(meterRegistry);
+        this.outOfOrder = meterRegistry.counter("sensors.store.out-of-order");
+        this.rejectedSeries = meterRegistry.counter("sensors.store.rejected-series");
+    }
+
+    // Accepted points are also kept in the on-disk history, when it is enabled
+    @Autowired(required = false)
+    public void setHistory(SensorHistoryStore history) {
+        this.history = history;
+    }
+
+    @Autowired
+    public void setStatistics(SensorStatisticsService statistics) {
+        this.statistics = statistics;
+    }
+
+    // False when the point was dropped: older than its series' newest point, or a new series
+    // while the store is full. A point that replaces the newest one (same timestamp) is only
+    // applied to the ring; statistics and history already counted that timestamp once.
+    public boolean write(SensorSeriesKey key, long timeMillis, double value) {
+        SensorSeries target = series.get(key);
+        if (target == null) {
+            if (series.size() >= maxSeries) {
+                rejectedSeries.increment();
+                return false;
+            }
+            target = series.computeIfAbsent(key, k -> new SensorSeries(pointsPerSeries));
+        }
+        SensorSeries.Append result = target.append(timeMillis, value);
+        if (result == SensorSeries.Append.REFUSED) {
+            outOfOrder.increment();
+            return false;
+        }
+        if (result == SensorSeries.Append.REPLACED) {
+            return true;
+        }
+        if (statistics != null) {
+            statistics.record(key, timeMillis, value);
+        }
+        if (history != null) {
+            history.append(key, timeMillis, value);
+        }
+        return true;
+    }
+
+    public int write(List<SensorReading> readings) {
+        int written = 0;
+        Instant now = Instant.now();
+        for (SensorReading reading : readings) {
+            if (reading.equipmentName() == null || reading.metric() == null) {
+                throw new IllegalArgumentException("equipmentName and metric are required");
+            }
+            long time = (reading.time() == null ? now : reading.time()).toEpochMilli();
+            if (write(reading.series(), time, reading.value())) {
+                written++;
+            }
+        }
+        return written;
+    }
+
+    // from inclusive, to exclusive; per series the newest limit points of the range
+    public List<SensorSeriesReadings> query(SensorSeriesFilter filter, Instant from, Instant to, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        if (fromMillis > toMillis) {
+            throw new IllegalArgumentException("Start must not be after end");
+        }
+        List<SensorSeriesReadings> result = new ArrayList<>();
+        for (SensorSeriesKey key : matching(filter)) {
+            SensorSeriesReadings readings = series.get(key).range(key, fromMillis, toMillis, limit);
+            if (readings.timestamps().length > 0) {
+                result.add(readings);
+            }
+        }
+        return result;
+    }
+
+    public List<SensorReading> latest(SensorSeriesFilter filter) {
+        List<SensorReading> result = new ArrayList<>();
+        for (SensorSeriesKey key : matching(filter)) {
+            SensorReading reading = series.get(key).latest(key);
+            if (reading != null) {
+                result.add(reading);
+            }
+        }
+        return result;
+    }
+
+    public List<SensorSeriesKey> series(SensorSeriesFilter filter) {
+        return matching(filter);
+    }
+
+    private List<SensorSeriesKey> matching(SensorSeriesFilter filter) {
+        List<SensorSeriesKey> keys = new ArrayList<>();
+        for (SensorSeriesKey key : series.keySet()) {
+            if (filter.matches(key)) {
+                keys.add(key);
+            }
+        }
+        keys.sort(SERIES_ORDER);
+        return keys;
+    }
+}
@@ -0,0 +1,109 @@
+package be.ucll.service.sensor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Count, extremes, mean and standard deviation of the readings of one series in a range, built
+// up point by point or from whole chunk summaries and other summaries. The moments are kept the
+// Welford way (running mean and sum of squared deviations), which stays accurate for long series
+// of large, close values and merges exactly. Summaries made with a quantile sketch also report
+// percentiles.
+public final class SensorSummary implements SensorPointVisitor {
+
+    private long count;
+    private double mean;
+    private double squaredDeviations;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long firstTime = Long.MAX_VALUE;
+    private long lastTime = Long.MIN_VALUE;
+    private final SensorQuantileSketch sketch;
+
+    public SensorSummary() {
+        this(false);
+    }
+
+    public SensorSummary(boolean withQuantiles) {
+        this.sketch = withQuantiles ? new SensorQuantileSketch() : null;
+    }
+
+    @Override
+    public void visit(long timeMillis, double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDeviations += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        firstTime = Math.min(firstTime, timeMillis);
+        lastTime = Math.max(lastTime, timeMillis);
+        if (sketch != null) {
+            sketch.add(value);
+        }
+    }
+
+    // Summaries without a sketch can take whole chunks from their header statistics
+    boolean tracksQuantiles() {
+        return sketch != null;
+    }
+
+    void addChunk(long points, long minTime, long maxTime, double chunkMin, double chunkMax, double chunkMean,
+                  double chunkSquaredDeviations) {
+        addMoments(points, chunkMean, chunkSquaredDeviations);
+        min = Math.min(min, chunkMin);
+        max = Math.max(max, chunkMax);
+        firstTime = Math.min(firstTime, minTime);
+        lastTime = Math.max(lastTime, maxTime);
+    }
+
+    void merge(SensorSummary other) {
+        if (other.count == 0) {
+            return;
+        }
+        addMoments(other.count, other.mean, other.squaredDeviations);
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        firstTime = Math.min(firstTime, other.firstTime);
+        lastTime = Math.max(lastTime, other.lastTime);
+        if (sketch != null && other.sketch != null) {
+            sketch.merge(other.sketch);
+        }
+    }
+
+    // Chan et al.'s pairwise combination of two sets of moments
+    private void addMoments(long otherCount, double otherMean, double otherSquaredDeviations) {
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        squaredDeviations += otherSquaredDeviations + delta * delta * ((double) count * otherCount / total);
+        count = total;
+    }
+
+    public SensorStatistics toStatistics(SensorSeriesKey series) {
+        return toStatistics(series, new double[0]);
+    }
+
+    // Percentiles are keyed like p50, p99.9, and clamped to the exact extremes
+    public SensorStatistics toStatistics(SensorSeriesKey series, double[] quantiles) {
+        for (double q : quantiles) {
+            if (!(q >= 0 && q <= 1)) {
+                throw new IllegalArgumentException("Quantiles must be between 0 and 1");
+            }
+        }
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        if (count == 0) {
+            return new SensorStatistics(series, 0, Double.NaN, Double.NaN, Double.NaN, Double.NaN, null, null,
+                    percentiles);
+        }
+        if (sketch != null && sketch.count() == count) {
+            for (double q : quantiles) {
+                String key = "p" + BigDecimal.valueOf(q * 100).stripTrailingZeros().toPlainString();
+                percentiles.put(key, Math.min(max, Math.max(min, sketch.quantile(q))));
+            }
+        }
+        return new SensorStatistics(series, count, min, max, mean, Math.sqrt(squaredDeviations / count),
+                Instant.ofEpochMilli(firstTime), Instant.ofEpochMilli(lastTime), percentiles);
+    }
+}
@@ -0,0 +1,119 @@
+package be.ucll.service.sensor;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Hands points to one writer thread per partition. A series always maps to the same partition,
+// so its points stay in order and its ring is only ever written by one thread. Each partition is
+// a single-producer ring of primitive arrays; offer must only be called from one thread.
+// A point the store fails to write (e.g. an I/O error in the history) is counted and skipped;
+// the writer keeps draining its partition.
+class SensorWriterPool {
+    private static final Logger log = LoggerFactory.getLogger(SensorWriterPool.class);
+
+    private final SensorStore store;
+    private final Counter failed;
+    private final Partition[] partitions;
+    private volatile boolean running = true;
+
+    SensorWriterPool(SensorStore store, Counter failed, int partitionCount, int queueCapacity) {
+        this.store = store;
+        this.failed = failed;
+        this.partitions = new Partition[partitionCount];
+        int capacity = Integer.highestOneBit(Math.max(2, queueCapacity - 1)) << 1;
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(capacity, "sensor-writer-" + (i + 1));
+        }
+    }
+
+    void start() {
+        for (Partition partition : partitions) {
+            partition.thread.start();
+        }
+    }
+
+    // False when the series' partition is full
+    boolean offer(SensorSeriesKey key, long timeMillis, double value) {
+        int hash = key.hashCode();
+        return partitions[((hash ^ (hash >>> 16)) & 0x7fffffff) % partitions.length].offer(key, timeMillis, value);
+    }
+
+    // Lets the writers finish what is queued, waiting up to timeoutMillis in total
+    void shutdown(long timeoutMillis) throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Partition partition : partitions) {
+            partition.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+    }
+
+    private final class Partition implements Runnable {
+        private final SensorSeriesKey[] keys;
+        private final long[] times;
+        private final double[] values;
+        private final int mask;
+        private final AtomicLong head = new AtomicLong();
+        private final AtomicLong tail = new AtomicLong();
+        private final Thread thread;
+        // Only the first failure of a run is logged, so a full disk does not flood the log
+        private boolean failing;
+
+        private Partition(int capacity, String name) {
+            this.keys = new SensorSeriesKey[capacity];
+            this.times = new long[capacity];
+            this.values = new double[capacity];
+            this.mask = capacity - 1;
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+        }
+
+        boolean offer(SensorSeriesKey key, long timeMillis, double value) {
+            long position = tail.get();
+            if (position - head.get() > mask) {
+                return false;
+            }
+            int slot = (int) position & mask;
+            keys[slot] = key;
+            times[slot] = timeMillis;
+            values[slot] = value;
+            tail.lazySet(position + 1);
+            return true;
+        }
+
+        @Override
+        public void run() {
+            long position = head.get();
+            while (running || position < tail.get()) {
+                long available = tail.get();
+                if (position == available) {
+                    LockSupport.parkNanos(50_000);
+                    continue;
+                }
+                for (; position < available; position++) {
+                    int slot = (int) position & mask;
+                    write(keys[slot], times[slot], values[slot]);
+                    keys[slot] = null;
+                }
+                head.lazySet(position);
+            }
+        }
+
+        private void write(SensorSeriesKey key, long timeMillis, double value) {
+            try {
+                store.write(key, timeMillis, value);
+                failing = false;
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (!failing) {
+                    failing = true;
+                    log.warn("Sensor point for {} could not be written, skipping: {}", key, e.toString());
+                }
+            }
+        }
+    }
+}
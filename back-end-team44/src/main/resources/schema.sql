@@ -7,7 +7,8 @@ CREATE TABLE users (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
     name VARCHAR(255),
     email VARCHAR(255),
-    password VARCHAR(255)
+    password VARCHAR(255),
+    token_epoch BIGINT NOT NULL DEFAULT 0
 );
 
 --insert into users
@@ -17,14 +18,17 @@ insert into users (name, email, password) values ('Loick Luypaert', 'loick.luypa
 -- LOGIN_RESPONSE table (linked to USERS)
 CREATE TABLE login_response (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
-    token VARCHAR(255),
+    token_hash VARCHAR(44),
     expires_in BIGINT,
+    expires_at TIMESTAMP WITH TIME ZONE,
     user_id BIGINT NOT NULL,
     CONSTRAINT fk_loginresponse_user
         FOREIGN KEY (user_id)
         REFERENCES users(id)
         ON DELETE CASCADE
 );
+CREATE UNIQUE INDEX idx_login_response_token_hash ON login_response (token_hash);
+CREATE INDEX idx_login_response_expires_at ON login_response (expires_at);
 
 -- Ensure next user ID starts from 5 to make tests deterministic
 ALTER TABLE users ALTER COLUMN id RESTART WITH 5;
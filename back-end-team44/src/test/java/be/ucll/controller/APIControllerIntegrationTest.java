@@ -2,19 +2,29 @@ package be.ucll.controller;
 
 import be.ucll.model.Alarm;
 import be.ucll.model.Batch;
+import be.ucll.model.BatchEndState;
 import be.ucll.model.Severity;
+import be.ucll.service.AlarmCursor;
+import be.ucll.service.AlarmFilter;
 import be.ucll.service.AlarmService;
+import be.ucll.service.AlarmStatistics;
+import be.ucll.service.AlarmStatisticsService;
+import be.ucll.service.BatchJsonCache;
 import be.ucll.service.CSVService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
@@ -28,9 +38,13 @@ class APIControllerIntegrationTest {
 
     private MockMvc mockMvc;
     private AlarmService alarmService;
+    private AlarmStatisticsService alarmStatisticsService;
     private CSVService csvService;
 
+    private static final UUID ENDED_BATCH_ID = UUID.fromString("00000000-0000-0000-0000-000000000001");
+
     private Alarm alarm;
+    private final List<UUID> batchesLoaded = new ArrayList<>();
 
     @BeforeEach
     void setUp() {
@@ -47,12 +61,13 @@ class APIControllerIntegrationTest {
             }
 
             @Override
-            public List<Alarm> getAllAlarms(Integer productionStep, Date startDate, Severity severity) {
+            public List<Alarm> getAllAlarms(AlarmFilter filter, AlarmCursor cursor, int limit) {
                 // Return a list containing the preset alarm if it matches filters
                 List<Alarm> list = new ArrayList<>();
-                boolean matches = (productionStep == null || alarm.getProductionStep() == productionStep)
-                        && (startDate == null || !alarm.getStartDate().before(startDate))
-                        && (severity == null || alarm.getSeverity() == severity);
+                boolean matches = (filter.productionStep() == null || alarm.getProductionStep() == filter.productionStep())
+                        && (filter.startDate() == null || !alarm.getStartDate().before(filter.startDate()))
+                        && (filter.severity() == null || alarm.getSeverity() == filter.severity())
+                        && (cursor == null || alarm.getStartDate().before(cursor.startDate()));
                 if (matches)
                     list.add(alarm);
                 return list;
@@ -76,24 +91,44 @@ class APIControllerIntegrationTest {
             }
 
             @Override
-            public List<Batch> getAllBatches() {
-                return List.of();
+            public List<BatchEndState> getBatchEndStates() {
+                BatchEndState state = new BatchEndState(ENDED_BATCH_ID, "COMPLETED", LocalDateTime.of(2024, 1, 1, 8, 0));
+                return List.of(state, state);
+            }
+
+            @Override
+            public List<Batch> getBatchesById(Collection<UUID> batchIds) {
+                batchesLoaded.addAll(batchIds);
+                Batch batch = new Batch("B1", "PO-1", "RCP-1", null, LocalDateTime.of(2024, 1, 1, 6, 0),
+                        null, LocalDateTime.of(2024, 1, 1, 8, 0), "COMPLETED", 1L, "Mix Tank");
+                batch.setBatchId(ENDED_BATCH_ID);
+                return List.of(batch);
             }
         };
 
-        // Stub CSVService to avoid external process
-        csvService = new CSVService() {
+        alarmStatisticsService = new AlarmStatisticsService(null, 30000) {
             @Override
-            public File generateCSV(List<Map<String, Object>> batchData) throws IOException, InterruptedException {
-                File temp = File.createTempFile("test-batches", ".csv");
-                try (FileWriter fw = new FileWriter(temp)) {
-                    fw.write("id,name\n");
-                }
-                return temp;
+            public AlarmStatistics getStatistics() {
+                return new AlarmStatistics(3, 2,
+                        Map.of(Severity.Info, 1L, Severity.Warning, 1L, Severity.Critical, 1L),
+                        Map.of(1, 3L),
+                        List.of(new AlarmStatistics.TimeBucket(LocalDateTime.of(2024, 1, 1, 10, 0), 3)),
+                        List.of(),
+                        Instant.now());
             }
         };
 
-        APIController controller = new APIController(alarmService, csvService);
+        // Stub CSVService to avoid the database cursor
+        csvService = new CSVService(null, null) {
+            @Override
+            public long exportAllBatches(OutputStream out) throws IOException {
+                out.write("batch_id,name\r\n".getBytes(StandardCharsets.UTF_8));
+                return 0;
+            }
+        };
+
+        BatchJsonCache batchJsonCache = new BatchJsonCache(new ObjectMapper().findAndRegisterModules(), 1024 * 1024);
+        APIController controller = new APIController(alarmService, alarmStatisticsService, csvService, batchJsonCache);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
@@ -124,6 +159,15 @@ class APIControllerIntegrationTest {
                 .andExpect(jsonPath("$[0].severity").value("Critical"));
     }
 
+    @Test
+    void givenFullPage_whenGetAllAlarms_thenReturnNextCursorHeader() throws Exception {
+        mockMvc.perform(get("/api/alarms")
+                .param("limit", "1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", AlarmCursor.of(alarm).encode()));
+    }
+
     @Test
     void givenAlarmId_whenGetAlarmById_thenReturnAlarm() throws Exception {
         mockMvc.perform(get("/api/alarms/1")
@@ -154,10 +198,54 @@ class APIControllerIntegrationTest {
     }
 
     @Test
-    void givenStatisticsEndpoint_whenGetStatistics_thenReturnPlaceholderMessage() throws Exception {
+    void givenStatisticsEndpoint_whenGetStatistics_thenReturnAggregates() throws Exception {
         mockMvc.perform(get("/api/alarms/statistics")
-                .accept(MediaType.TEXT_PLAIN))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.active").value(2))
+                .andExpect(jsonPath("$.bySeverity.Critical").value(1))
+                .andExpect(jsonPath("$.byProductionStep.1").value(3))
+                .andExpect(jsonPath("$.lastDayByHour[0].count").value(3));
+    }
+
+    @Test
+    void givenCsvFormat_whenExportBatches_thenStreamCsvAttachment() throws Exception {
+        mockMvc.perform(get("/api/batches/export")
+                .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"batches_export.csv\""))
+                .andExpect(content().string("batch_id,name\r\n"));
+    }
+
+    @Test
+    void givenUnsupportedFormat_whenExportBatches_thenBadRequest() throws Exception {
+        mockMvc.perform(get("/api/batches/export")
+                .param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void givenEndedBatches_whenGetAllBatches_thenWriteJsonArray() throws Exception {
+        mockMvc.perform(get("/api/batches")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].batchNumber").value("B1"))
+                .andExpect(jsonPath("$[1].name").value("MixTank"));
+    }
+
+    @Test
+    void givenCachedEndedBatches_whenGetAllBatchesAgain_thenNoBatchIsLoaded() throws Exception {
+        mockMvc.perform(get("/api/batches")).andExpect(status().isOk());
+        batchesLoaded.clear();
+
+        mockMvc.perform(get("/api/batches")
+                .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
-                .andExpect(content().string("No statistics yet."));
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].batchNumber").value("B1"));
+        Assertions.assertTrue(batchesLoaded.isEmpty());
     }
 }
@@ -0,0 +1,136 @@
+package be.ucll.integration;
+
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.repository.BatchRepository;
+import be.ucll.service.CSVService;
+import be.ucll.service.ingest.BatchBulkWriter;
+import be.ucll.service.ingest.BatchIngestResult;
+import be.ucll.service.ingest.BatchIngestService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Runs the ingest against H2, one real transaction per chunk (the test itself is not transactional)
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({BatchIngestServiceTest.Config.class, CSVService.class})
+public class BatchIngestServiceTest {
+
+    private static final UUID FIRST = UUID.fromString("00000000-0000-0000-0000-000000000001");
+    private static final UUID SECOND = UUID.fromString("00000000-0000-0000-0000-000000000002");
+
+    @Autowired
+    private BatchIngestService ingestService;
+
+    @Autowired
+    private BatchRepository batchRepository;
+
+    @Autowired
+    private EventCollector collector;
+
+    private List<BatchChangedEvent> events;
+
+    @BeforeEach
+    public void setup() {
+        batchRepository.deleteAll();
+        collector.events.clear();
+        events = collector.events;
+    }
+
+    @Test
+    public void givenBatchIngestedTwice_whenIngest_thenUpdateTheRowAndPublishBeforeAndAfter() throws Exception {
+        ingest("batch_id,execution_status,name\n" + FIRST + ",RUNNING,Mix\n" + SECOND + ",RUNNING,Bake\n");
+        BatchIngestResult result = ingest("batch_id,execution_status,name\n" + FIRST + ",COMPLETED,Mix\n");
+
+        Assertions.assertEquals(1, result.written());
+        Assertions.assertEquals(2, batchRepository.count());
+        Assertions.assertEquals("COMPLETED", batchRepository.findById(FIRST).orElseThrow().getExecutionStatus());
+        Assertions.assertEquals(3, events.size());
+        Assertions.assertNull(events.get(0).before());
+        BatchChangedEvent update = events.get(2);
+        Assertions.assertEquals("RUNNING", update.before().executionStatus());
+        Assertions.assertEquals("COMPLETED", update.after().executionStatus());
+        Assertions.assertEquals(FIRST, update.after().batchId());
+    }
+
+    @Test
+    public void givenChunkThatFails_whenIngest_thenEarlierChunksStayCommittedWithTheirEvents() {
+        StringBuilder csv = new StringBuilder("batch_id,execution_status,name\n");
+        // The same id twice in the first chunk of two: the last record wins
+        csv.append(new UUID(0, 1)).append(",COMPLETED,Batch 1\n");
+        csv.append(new UUID(0, 1)).append(",FAILED,Batch 1\n");
+        for (int i = 2; i <= 4; i++) {
+            csv.append(new UUID(0, i)).append(",COMPLETED,Batch ").append(i).append('\n');
+        }
+        // Too long for the name column, so the third chunk rolls back
+        csv.append(new UUID(0, 5)).append(",COMPLETED,").append("x".repeat(300)).append('\n');
+
+        Assertions.assertThrows(RuntimeException.class, () -> ingest(csv.toString()));
+
+        Assertions.assertEquals(4, batchRepository.count());
+        Assertions.assertEquals("FAILED", batchRepository.findById(new UUID(0, 1)).orElseThrow().getExecutionStatus());
+        Assertions.assertFalse(batchRepository.existsById(new UUID(0, 5)));
+        Assertions.assertEquals(4, events.size());
+        Assertions.assertEquals("FAILED", events.get(0).after().executionStatus());
+    }
+
+    private BatchIngestResult ingest(String csv) throws Exception {
+        return ingestService.ingest(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                BatchIngestService.Format.CSV);
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        EventCollector eventCollector() {
+            return new EventCollector();
+        }
+
+        @Bean
+        JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        BatchBulkWriter batchBulkWriter(JdbcTemplate jdbcTemplate, CSVService csvService) {
+            return new BatchBulkWriter(jdbcTemplate, csvService, false);
+        }
+
+        @Bean
+        BatchIngestService batchIngestService(BatchBulkWriter writer, PlatformTransactionManager transactionManager,
+                                              BatchRepository batchRepository, ApplicationEventPublisher eventPublisher) {
+            return new BatchIngestService(writer, transactionManager, new ObjectMapper(), batchRepository,
+                    eventPublisher, 2);
+        }
+    }
+
+    // Only hears about a chunk once it has committed
+    static class EventCollector {
+        private final List<BatchChangedEvent> events = new CopyOnWriteArrayList<>();
+
+        @TransactionalEventListener
+        public void onBatchChanged(BatchChangedEvent event) {
+            events.add(event);
+        }
+    }
+}
@@ -2,10 +2,14 @@ package be.ucll.model;
 
 import be.ucll.repository.AlarmRepository;
 import be.ucll.repository.BatchRepository;
+import be.ucll.service.AlarmCursor;
+import be.ucll.service.AlarmFilter;
 import be.ucll.service.AlarmService;
+import be.ucll.service.AlarmSummary;
 import be.ucll.service.BatchService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.jpa.domain.Specification;
 
 import java.time.LocalDateTime;
 import java.util.Date;
@@ -32,37 +36,43 @@ class AlarmTest {
     }
 
     @Test
-    void givenExistingAlarms_whenGetAllAlarmsWithoutFilters_thenReturnAll() {
-        when(alarmRepository.findAll()).thenReturn(List.of(new Alarm(), new Alarm()));
+    void givenExistingAlarms_whenGetAllAlarmsWithoutFilters_thenReturnPageFromRepository() {
+        when(alarmRepository.findBy(any(Specification.class), any())).thenReturn(List.of(new Alarm(), new Alarm()));
 
-        List<Alarm> result = alarmService.getAllAlarms(null, null, null);
+        List<Alarm> result = alarmService.getAllAlarms(AlarmFilter.none(), null, 50);
 
         assertEquals(2, result.size());
-        verify(alarmRepository, times(1)).findAll();
+        verify(alarmRepository, times(1)).findBy(any(Specification.class), any());
+        verify(alarmRepository, never()).findAll();
     }
 
     @Test
-    void givenSeverityFilter_whenGetAllAlarms_thenReturnMatchingAlarms() {
-        Alarm alarm = new Alarm(1, new Date(), Severity.Critical, List.of());
-        when(alarmRepository.findAll()).thenReturn(List.of(alarm));
+    void givenFilters_whenGetAllAlarms_thenQueryDatabaseInsteadOfLoadingAll() {
+        Alarm alarm = new Alarm(2, new Date(), Severity.Critical, List.of());
+        when(alarmRepository.findBy(any(Specification.class), any())).thenReturn(List.of(alarm));
 
-        List<Alarm> result = alarmService.getAllAlarms(null, null, Severity.Critical);
+        AlarmFilter filter = new AlarmFilter(2, Severity.Critical, new Date(0), null, UUID.randomUUID());
+        List<Alarm> result = alarmService.getAllAlarms(filter, new AlarmCursor(new Date(), 10L), 20);
 
         assertEquals(1, result.size());
         assertEquals(Severity.Critical, result.get(0).getSeverity());
-        verify(alarmRepository).findAll();
+        verify(alarmRepository, never()).findAll();
     }
 
     @Test
-    void givenProductionStepFilter_whenGetAllAlarms_thenReturnMatchingAlarms() {
-        Alarm alarm = new Alarm(2, new Date(), Severity.Warning, List.of());
-        when(alarmRepository.findAll()).thenReturn(List.of(alarm));
+    void givenLimitAboveMaximum_whenGetAllAlarms_thenThrowException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> alarmService.getAllAlarms(AlarmFilter.none(), null, AlarmService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    void givenEncodedCursor_whenDecode_thenRoundTrips() {
+        AlarmCursor cursor = new AlarmCursor(new Date(1_700_000_000_000L), 42L);
 
-        List<Alarm> result = alarmService.getAllAlarms(2, null, null);
+        AlarmCursor decoded = AlarmCursor.decode(cursor.encode());
 
-        assertEquals(1, result.size());
-        assertEquals(2, result.get(0).getProductionStep());
-        verify(alarmRepository).findAll();
+        assertEquals(cursor, decoded);
+        assertThrows(IllegalArgumentException.class, () -> AlarmCursor.decode("not-a-cursor"));
     }
 
     @Test
@@ -121,4 +131,23 @@ class AlarmTest {
         assertTrue(ex.getMessage().contains("does not exist"));
         verify(batchRepository).findById(missing);
     }
+
+    @Test
+    void givenAlarmsWithBatches_whenGetAlarmSummaries_thenBatchIdsComeFromOneQuery() {
+        Alarm first = new Alarm(1, new Date(), Severity.Critical, null);
+        first.setId(1L);
+        Alarm second = new Alarm(2, new Date(), Severity.Critical, null);
+        second.setId(2L);
+        UUID batchA = UUID.randomUUID();
+        UUID batchB = UUID.randomUUID();
+        when(alarmRepository.findBy(any(Specification.class), any())).thenReturn(List.of(first, second));
+        when(alarmRepository.findBatchIdsByAlarmIds(List.of(1L, 2L)))
+                .thenReturn(List.of(new Object[]{1L, batchA}, new Object[]{1L, batchB}));
+
+        List<AlarmSummary> result = alarmService.getAlarmSummaries(AlarmFilter.none(), null, 50);
+
+        assertEquals(List.of(batchA, batchB), result.get(0).batchIds());
+        assertEquals(List.of(), result.get(1).batchIds());
+        verify(alarmRepository, times(1)).findBatchIdsByAlarmIds(any());
+    }
 }
@@ -0,0 +1,61 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Severity;
+import be.ucll.service.ingest.AlarmCoalescer;
+import be.ucll.service.ingest.AlarmIngestRequest;
+import be.ucll.service.ingest.CoalescedAlarm;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public class AlarmCoalescerTest {
+
+    private final List<CoalescedAlarm> emitted = new ArrayList<>();
+    private final AlarmCoalescer coalescer = new AlarmCoalescer(1000, emitted::add);
+
+    @Test
+    public void givenRepeatsWithinWindow_whenWindowCloses_thenEmitOneAlarmWithCountAndRange() {
+        UUID batchA = UUID.randomUUID();
+        UUID batchB = UUID.randomUUID();
+
+        Assertions.assertTrue(coalescer.offer(alarm(1, Severity.Critical, 200, List.of(batchA)), 0));
+        Assertions.assertFalse(coalescer.offer(alarm(1, Severity.Critical, 100, List.of(batchA, batchB)), 400));
+        Assertions.assertFalse(coalescer.offer(alarm(1, Severity.Critical, 900, List.of()), 999));
+        Assertions.assertTrue(coalescer.offer(alarm(1, Severity.Warning, 300, List.of()), 500));
+        coalescer.closeExpired(999);
+        Assertions.assertTrue(emitted.isEmpty());
+
+        coalescer.closeExpired(1000);
+
+        Assertions.assertEquals(1, emitted.size());
+        CoalescedAlarm alarm = emitted.get(0);
+        Assertions.assertEquals(Severity.Critical, alarm.severity());
+        Assertions.assertEquals(3, alarm.occurrenceCount());
+        Assertions.assertEquals(new Date(100), alarm.firstOccurrence());
+        Assertions.assertEquals(new Date(900), alarm.lastOccurrence());
+        Assertions.assertEquals(Set.of(batchA, batchB), Set.copyOf(alarm.batchIds()));
+        Assertions.assertEquals(1, coalescer.openWindows());
+    }
+
+    @Test
+    public void givenRepeatAfterWindow_whenOffer_thenEmitOldWindowAndOpenNewOne() {
+        coalescer.offer(alarm(2, Severity.Info, 0, List.of()), 0);
+
+        Assertions.assertTrue(coalescer.offer(alarm(2, Severity.Info, 1500, List.of()), 1500));
+
+        Assertions.assertEquals(1, emitted.size());
+        Assertions.assertEquals(1, emitted.get(0).occurrenceCount());
+        coalescer.closeAll();
+        Assertions.assertEquals(2, emitted.size());
+        Assertions.assertEquals(new Date(1500), emitted.get(1).firstOccurrence());
+    }
+
+    private static AlarmIngestRequest alarm(int step, Severity severity, long startMillis, List<UUID> batchIds) {
+        return new AlarmIngestRequest(step, new Date(startMillis), severity, batchIds);
+    }
+}
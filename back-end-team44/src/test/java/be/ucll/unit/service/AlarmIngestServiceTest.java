@@ -0,0 +1,58 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Severity;
+import be.ucll.service.ingest.AlarmIngestRequest;
+import be.ucll.service.ingest.AlarmIngestService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.mockito.Mockito.mock;
+
+public class AlarmIngestServiceTest {
+
+    // The writer is not started, so nothing leaves the buffer
+    private final AlarmIngestService service = new AlarmIngestService(mock(PlatformTransactionManager.class),
+            mock(EntityManager.class), null, new SimpleMeterRegistry(), 3, 10, 10, 0);
+
+    @Test
+    public void givenFullBuffer_whenSubmit_thenRejectWithoutBufferingAnything() {
+        Assertions.assertEquals(2, service.submit(List.of(alarm(), alarm())));
+
+        Assertions.assertThrows(RejectedExecutionException.class, () -> service.submit(List.of(alarm(), alarm())));
+        Assertions.assertEquals(2, service.buffered());
+        Assertions.assertEquals(1, service.submit(List.of(alarm())));
+    }
+
+    @Test
+    public void givenAlarmWithoutSeverity_whenSubmit_thenThrowException() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> service.submit(List.of(new AlarmIngestRequest(1, null, null, null))));
+        Assertions.assertEquals(0, service.buffered());
+    }
+
+    @Test
+    public void givenRepeatsWithinWindow_whenSubmit_thenHoldOneUnitOfRoomPerWindow() {
+        AlarmIngestService coalescing = new AlarmIngestService(mock(PlatformTransactionManager.class),
+                mock(EntityManager.class), null, new SimpleMeterRegistry(), 3, 10, 10, 60_000);
+
+        Assertions.assertEquals(3, coalescing.submit(List.of(alarm(), alarm(), alarm())));
+        Assertions.assertEquals(2, coalescing.submit(List.of(
+                new AlarmIngestRequest(2, null, Severity.Warning, null),
+                new AlarmIngestRequest(3, null, Severity.Warning, null))));
+
+        Assertions.assertEquals(3, coalescing.openWindows());
+        Assertions.assertEquals(0, coalescing.buffered());
+        Assertions.assertThrows(RejectedExecutionException.class,
+                () -> coalescing.submit(List.of(new AlarmIngestRequest(4, null, Severity.Warning, null))));
+    }
+
+    private static AlarmIngestRequest alarm() {
+        return new AlarmIngestRequest(1, null, Severity.Warning, null);
+    }
+}
@@ -0,0 +1,80 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Severity;
+import be.ucll.repository.AlarmRepository;
+import be.ucll.service.AlarmStatistics;
+import be.ucll.service.AlarmStatisticsService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.mockito.Mockito.*;
+
+public class AlarmStatisticsServiceTest {
+
+    private AlarmRepository alarmRepository;
+
+    @BeforeEach
+    public void setup() {
+        alarmRepository = mock(AlarmRepository.class);
+        when(alarmRepository.countBySeverity()).thenReturn(List.<Object[]>of(
+                new Object[]{Severity.Critical, 2L}, new Object[]{Severity.Info, 3L}));
+    }
+
+    @Test
+    public void givenFreshSnapshot_whenGetStatistics_thenServeItWithoutQuerying() {
+        AlarmStatisticsService service = new AlarmStatisticsService(alarmRepository, 60_000);
+
+        AlarmStatistics first = service.getStatistics();
+        AlarmStatistics second = service.getStatistics();
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(5, second.total());
+        Assertions.assertEquals(2, second.active());
+        verify(alarmRepository, times(1)).countBySeverity();
+    }
+
+    @Test
+    public void givenStaleSnapshot_whenRequestedConcurrently_thenRecomputeOnce() throws Exception {
+        AlarmStatisticsService service = new AlarmStatisticsService(alarmRepository, 200);
+        AlarmStatistics stale = service.getStatistics();
+        Thread.sleep(300);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<AlarmStatistics>> requests = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                requests.add(executor.submit(service::getStatistics));
+            }
+            AlarmStatistics fresh = requests.get(0).get();
+            for (Future<AlarmStatistics> request : requests) {
+                Assertions.assertSame(fresh, request.get());
+            }
+            Assertions.assertNotSame(stale, fresh);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(alarmRepository, times(2)).countBySeverity();
+    }
+
+    @Test
+    public void givenRecentRequest_whenRefresh_thenRecomputeInTheBackgroundOnlyThen() {
+        AlarmStatisticsService service = new AlarmStatisticsService(alarmRepository, 60_000);
+
+        // Nobody has asked yet, so there is nothing to keep warm
+        service.refresh();
+        verify(alarmRepository, never()).countBySeverity();
+
+        AlarmStatistics requested = service.getStatistics();
+        service.refresh();
+
+        Assertions.assertNotSame(requested, service.getStatistics());
+        verify(alarmRepository, times(2)).countBySeverity();
+    }
+}
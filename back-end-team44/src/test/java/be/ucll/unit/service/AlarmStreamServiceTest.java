@@ -0,0 +1,128 @@
+package be.ucll.unit.service;
+
+import be.ucll.controller.AlarmStreamController;
+import be.ucll.model.AlarmChangedEvent;
+import be.ucll.model.Severity;
+import be.ucll.repository.AlarmRepository;
+import be.ucll.service.AlarmStreamService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+public class AlarmStreamServiceTest {
+
+    private final AlarmRepository alarmRepository = mock(AlarmRepository.class);
+    // Sends run on the calling thread, so everything offered has been written when a call returns
+    private final AlarmStreamService service = new AlarmStreamService(alarmRepository, new ObjectMapper(), 4, 60_000,
+            new DirectExecutorService());
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new AlarmStreamController(service)).build();
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void givenSubscriber_whenAlarmsChange_thenSendCountsThenOneCoalescedUpdate() throws Exception {
+        when(alarmRepository.countBySeverity()).thenReturn(List.<Object[]>of(new Object[]{Severity.Critical, 2L}));
+        service.seed();
+        MockHttpServletResponse response = mockMvc.perform(get("/api/alarms/stream"))
+                .andExpect(request().asyncStarted()).andReturn().getResponse();
+
+        service.onAlarmChanged(new AlarmChangedEvent(1L, 3, new Date(0), new Date(0), 1, null, Severity.Warning, List.of()));
+        service.onAlarmChanged(new AlarmChangedEvent(2L, 3, new Date(0), new Date(0), 1, Severity.Critical, Severity.Info, null));
+        service.flush();
+
+        String body = response.getContentAsString();
+        Assertions.assertTrue(body.startsWith("retry: 3000\nevent: counts\ndata: {\"Info\":0,\"Warning\":0,\"Critical\":2}\n\n"
+                + "id: 1\nevent: alarms\ndata: {\"alarms\":[{\"id\":1,"));
+        Assertions.assertTrue(body.contains("\"severityDeltas\":{\"Info\":1,\"Warning\":1,\"Critical\":-1}"));
+        Assertions.assertEquals(1, body.split("event: alarms", -1).length - 1);
+    }
+
+    @Test
+    public void givenSubscriberThatStopsReading_whenQueueOverflows_thenDisconnect() throws Exception {
+        // The only sender is kept busy, so nothing drains: counts + 3 heartbeats fill the queue of 4
+        ExecutorService senders = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        senders.execute(() -> awaitQuietly(release));
+        AlarmStreamService blocked = new AlarmStreamService(alarmRepository, new ObjectMapper(), 4, 60_000, senders);
+        try {
+            blocked.subscribe();
+            Assertions.assertEquals(1, blocked.subscriberCount());
+
+            for (int i = 0; i < 4; i++) {
+                blocked.heartbeat();
+            }
+
+            Assertions.assertEquals(0, blocked.subscriberCount());
+        } finally {
+            release.countDown();
+            blocked.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class DirectExecutorService extends AbstractExecutorService {
+        private volatile boolean shutdown;
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException();
+            }
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown = true;
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
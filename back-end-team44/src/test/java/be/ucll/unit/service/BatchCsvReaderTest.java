@@ -0,0 +1,43 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Batch;
+import be.ucll.service.ingest.BatchCsvReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class BatchCsvReaderTest {
+
+    @Test
+    public void givenQuotedFieldsAndMixedLineEnds_whenNext_thenParseEveryRecord() throws Exception {
+        String csv = "batch_id,recipe_id,actual_start_time,internal_id\r\n"
+                + "00000000-0000-0000-0000-000000000001,\"Mix,\"\"Tank\"\"\",2024-01-01T06:00,7\r\n"
+                + "\n"
+                + "00000000-0000-0000-0000-000000000002,\"Two\nLines\",,\n";
+        BatchCsvReader reader = new BatchCsvReader(new StringReader(csv));
+
+        Batch first = reader.next();
+        Batch second = reader.next();
+
+        Assertions.assertEquals(UUID.fromString("00000000-0000-0000-0000-000000000001"), first.getBatchId());
+        Assertions.assertEquals("Mix,\"Tank\"", first.getRecipeId());
+        Assertions.assertEquals(LocalDateTime.of(2024, 1, 1, 6, 0), first.getActualStartTime());
+        Assertions.assertEquals(7L, first.getInternalId());
+        Assertions.assertEquals("Two\nLines", second.getRecipeId());
+        Assertions.assertNull(second.getActualStartTime());
+        Assertions.assertNull(reader.next());
+    }
+
+    @Test
+    public void givenInvalidValue_whenNext_thenReportLineNumber() throws Exception {
+        BatchCsvReader reader = new BatchCsvReader(new StringReader("batch_id\n00000000-0000-0000-0000-000000000001\nnope\n"));
+        reader.next();
+
+        IllegalArgumentException ex = Assertions.assertThrows(IllegalArgumentException.class, reader::next);
+
+        Assertions.assertEquals("Line 3: invalid batch_id 'nope'", ex.getMessage());
+    }
+}
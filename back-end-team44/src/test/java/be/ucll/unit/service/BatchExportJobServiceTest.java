@@ -0,0 +1,110 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Batch;
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.BatchCursor;
+import be.ucll.service.BatchFilter;
+import be.ucll.service.BatchPage;
+import be.ucll.service.BatchService;
+import be.ucll.service.BatchSort;
+import be.ucll.service.CSVService;
+import be.ucll.service.export.BatchExportJob;
+import be.ucll.service.export.BatchExportJobService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BatchExportJobServiceTest {
+
+    private static final String OWNER = "alice@example.com";
+
+    private final BatchService batchService = mock(BatchService.class);
+    private BatchExportJobService service;
+
+    @AfterEach
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void givenTwoPages_whenExportCompletes_thenFileHoldsGzippedCsvOfAllRows() throws Exception {
+        service = new BatchExportJobService(batchService, new CSVService(null, null), 1, 1, 1, 60_000);
+        Batch first = batch("B-1");
+        Batch second = batch("B-2");
+        BatchCursor cursor = BatchSort.ACTUAL_START_TIME.cursorOf(first);
+        when(batchService.queryBatches(any(BatchFilter.class), eq(BatchSort.ACTUAL_START_TIME), eq(true), isNull(), anyInt()))
+                .thenReturn(new BatchPage(List.of(first), cursor.encode(), 2L, false));
+        when(batchService.queryBatches(any(BatchFilter.class), eq(BatchSort.ACTUAL_START_TIME), eq(true), eq(cursor), anyInt()))
+                .thenReturn(new BatchPage(List.of(second), null, null, false));
+
+        BatchExportJob job = service.submit(OWNER, BatchFilter.none(), List.of(BatchCsvColumn.BATCH_NUMBER));
+        while (!job.isFinished()) {
+            Thread.sleep(10);
+        }
+
+        Assertions.assertEquals(BatchExportJob.Status.COMPLETED, job.getStatus());
+        Assertions.assertEquals(2, job.getRowsWritten());
+        Assertions.assertEquals(100.0, job.getProgress());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(job.getFile()))) {
+            Assertions.assertEquals("batch_number\r\nB-1\r\nB-2\r\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        Assertions.assertTrue(service.cancel(OWNER, job.getId()));
+        Assertions.assertFalse(Files.exists(job.getFile()));
+    }
+
+    @Test
+    public void givenWorkerAndQueueFull_whenSubmit_thenRejected() throws Exception {
+        service = new BatchExportJobService(batchService, new CSVService(null, null), 1, 1, 100, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        when(batchService.queryBatches(any(), any(), eq(true), any(), anyInt())).thenAnswer(invocation -> {
+            release.await();
+            return new BatchPage(List.of(), null, 0L, false);
+        });
+
+        service.submit(OWNER, BatchFilter.none(), List.of(BatchCsvColumn.values()));
+        service.submit(OWNER, BatchFilter.none(), List.of(BatchCsvColumn.values()));
+
+        Assertions.assertThrows(RejectedExecutionException.class,
+                () -> service.submit(OWNER, BatchFilter.none(), List.of(BatchCsvColumn.values())));
+        release.countDown();
+    }
+
+    @Test
+    public void givenJobOfAnotherUser_whenGetOrCancel_thenItIsNotFound() throws Exception {
+        service = new BatchExportJobService(batchService, new CSVService(null, null), 1, 1, 100, 60_000);
+        CountDownLatch release = new CountDownLatch(1);
+        when(batchService.queryBatches(any(), any(), eq(true), any(), anyInt())).thenAnswer(invocation -> {
+            release.await();
+            return new BatchPage(List.of(), null, 0L, false);
+        });
+        BatchExportJob job = service.submit(OWNER, BatchFilter.none(), List.of(BatchCsvColumn.values()));
+
+        Assertions.assertTrue(service.getJob("bob@example.com", job.getId()).isEmpty());
+        Assertions.assertFalse(service.cancel("bob@example.com", job.getId()));
+        Assertions.assertSame(job, service.getJob(OWNER, job.getId()).orElseThrow());
+        Assertions.assertTrue(service.cancel(OWNER, job.getId()));
+        release.countDown();
+    }
+
+    private static Batch batch(String batchNumber) {
+        Batch batch = new Batch(batchNumber, null, null, null, null, null, null, "COMPLETED", null, null);
+        batch.setBatchId(UUID.randomUUID());
+        return batch;
+    }
+}
@@ -0,0 +1,79 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchSnapshot;
+import be.ucll.repository.BatchRepository;
+import be.ucll.service.BatchSearchHit;
+import be.ucll.service.BatchSearchIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+public class BatchSearchIndexTest {
+
+    private final BatchSearchIndex index = new BatchSearchIndex(null);
+
+    @Test
+    public void givenIndexedBatches_whenSearch_thenExactBeforePrefixBeforeSubstring() {
+        BatchSnapshot substring = insert("XB-1001", "PO-1", "Mixer");
+        BatchSnapshot prefix = insert("B-10012", "PO-2", "Mixer");
+        BatchSnapshot exact = insert("B-1001", "PO-3", "Mixer");
+        insert("B-2002", "PO-4", "Mixer");
+
+        List<BatchSearchHit> hits = index.search("b-1001", 10);
+
+        Assertions.assertEquals(List.of(exact.batchId(), prefix.batchId(), substring.batchId()),
+                hits.stream().map(BatchSearchHit::batchId).toList());
+        Assertions.assertEquals("batchNumber", hits.get(0).matchedField());
+        Assertions.assertEquals(2, index.search("mi", 2).size());
+    }
+
+    @Test
+    public void givenRenamedAndDeletedBatches_whenSearch_thenIndexFollowsChanges() {
+        BatchSnapshot batch = insert("B-1", "PO-1", "OldName");
+        BatchSnapshot renamed = snapshot(batch.batchId(), "B-1", "PO-1", "NewName");
+        index.onBatchChanged(new BatchChangedEvent(batch, renamed));
+
+        Assertions.assertTrue(index.search("oldname", 10).isEmpty());
+        Assertions.assertEquals(1, index.search("newna", 10).size());
+
+        index.onBatchChanged(new BatchChangedEvent(renamed, null));
+        Assertions.assertTrue(index.search("newna", 10).isEmpty());
+        Assertions.assertEquals(0, index.size());
+    }
+
+    @Test
+    public void givenChangeCommittedDuringReseed_whenSeed_thenOldIndexServesAndNewIndexKeepsChange() {
+        BatchRepository batchRepository = Mockito.mock(BatchRepository.class);
+        BatchSearchIndex reseeded = new BatchSearchIndex(batchRepository);
+        BatchSnapshot stale = snapshot(UUID.randomUUID(), "B-OLD", "PO-1", "Mixer");
+        BatchSnapshot scanned = snapshot(UUID.randomUUID(), "B-NEW", "PO-2", "Mixer");
+        BatchSnapshot committed = snapshot(UUID.randomUUID(), "B-LATE", "PO-3", "Oven");
+        reseeded.onBatchChanged(new BatchChangedEvent(null, stale));
+        Mockito.when(batchRepository.streamSnapshots()).thenAnswer(invocation -> Stream.of(scanned).peek(s -> {
+            Assertions.assertEquals(1, reseeded.search("b-old", 10).size());
+            reseeded.onBatchChanged(new BatchChangedEvent(null, committed));
+        }));
+
+        reseeded.seed();
+
+        Assertions.assertTrue(reseeded.search("b-old", 10).isEmpty());
+        Assertions.assertEquals(1, reseeded.search("b-new", 10).size());
+        Assertions.assertEquals(1, reseeded.search("b-late", 10).size());
+        Assertions.assertEquals(2, reseeded.size());
+    }
+
+    private BatchSnapshot insert(String batchNumber, String productionOrderNumber, String name) {
+        BatchSnapshot snapshot = snapshot(UUID.randomUUID(), batchNumber, productionOrderNumber, name);
+        index.onBatchChanged(new BatchChangedEvent(null, snapshot));
+        return snapshot;
+    }
+
+    private static BatchSnapshot snapshot(UUID batchId, String batchNumber, String productionOrderNumber, String name) {
+        return new BatchSnapshot(batchId, "COMPLETED", null, null, batchNumber, productionOrderNumber, name);
+    }
+}
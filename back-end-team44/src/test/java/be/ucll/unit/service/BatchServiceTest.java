@@ -0,0 +1,236 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Batch;
+import be.ucll.model.BatchChangedEvent;
+import be.ucll.model.BatchSnapshot;
+import be.ucll.repository.BatchRepository;
+import be.ucll.service.BatchCursor;
+import be.ucll.service.BatchFilter;
+import be.ucll.service.BatchKpiAggregator;
+import be.ucll.service.BatchPage;
+import be.ucll.service.BatchService;
+import be.ucll.service.BatchSort;
+import be.ucll.service.BatchStats;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BatchServiceTest {
+
+    private BatchRepository batchRepository;
+    private BatchKpiAggregator batchKpiAggregator;
+    private BatchService service;
+
+    @BeforeEach
+    public void setup() {
+        batchRepository = Mockito.mock(BatchRepository.class);
+        batchKpiAggregator = new BatchKpiAggregator(batchRepository);
+        service = new BatchService(batchRepository, batchKpiAggregator);
+    }
+
+    private Batch batch(String batchNumber, LocalDateTime actualStartTime) {
+        Batch batch = new Batch(batchNumber, "PO-1", "RCP-1", null, actualStartTime, null, null,
+                "COMPLETED", 1L, "Batch " + batchNumber);
+        batch.setBatchId(UUID.randomUUID());
+        return batch;
+    }
+
+    // --- queryBatches (first page) ---
+
+    @Test
+    public void givenFullFirstPage_whenQueryBatches_thenReturnsCursorAndExactCount() {
+        Batch last = batch("B2", LocalDateTime.of(2024, 5, 1, 8, 0));
+        Mockito.when(batchRepository.findBy(any(Specification.class), any())).thenReturn(List.of(batch("B1", null), last));
+        Mockito.when(batchRepository.count(any(Specification.class))).thenReturn(12L);
+
+        BatchPage page = service.queryBatches(new BatchFilter("COMPLETED", null, null, null, null, null),
+                BatchSort.ACTUAL_START_TIME, false, null, 2);
+
+        Assertions.assertEquals(2, page.items().size());
+        Assertions.assertEquals(12L, page.total());
+        Assertions.assertFalse(page.totalEstimated());
+        BatchCursor cursor = BatchCursor.decode(page.nextCursor());
+        Assertions.assertEquals(last.getBatchId(), cursor.batchId());
+        Assertions.assertEquals("2024-05-01T08:00", cursor.value());
+        verify(batchRepository, never()).findAll();
+        verify(batchRepository, never()).estimateRowCount();
+    }
+
+    @Test
+    public void givenLargeUnfilteredTable_whenQueryBatches_thenUsesEstimateInsteadOfCount() {
+        Mockito.when(batchRepository.findBy(any(Specification.class), any())).thenReturn(List.of(batch("B1", null)));
+        Mockito.when(batchRepository.estimateRowCount()).thenReturn(2_500_000L);
+
+        BatchPage page = service.queryBatches(BatchFilter.none(), BatchSort.ACTUAL_START_TIME, false, null, 50);
+
+        Assertions.assertEquals(2_500_000L, page.total());
+        Assertions.assertTrue(page.totalEstimated());
+        Assertions.assertNull(page.nextCursor());
+        verify(batchRepository, never()).count(any(Specification.class));
+    }
+
+    // --- queryBatches (next page) ---
+
+    @Test
+    public void givenCursor_whenQueryBatches_thenSkipsCounting() {
+        Mockito.when(batchRepository.findBy(any(Specification.class), any())).thenReturn(List.of());
+        BatchCursor cursor = new BatchCursor(null, UUID.randomUUID());
+
+        BatchPage page = service.queryBatches(BatchFilter.none(), BatchSort.ACTUAL_START_TIME, true,
+                BatchCursor.decode(cursor.encode()), 50);
+
+        Assertions.assertNull(page.total());
+        verify(batchRepository, never()).count(any(Specification.class));
+        verify(batchRepository, never()).estimateRowCount();
+    }
+
+    @Test
+    public void givenUnknownSortProperty_whenFromProperty_thenThrowsIllegalArgumentException() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchSort.fromProperty("password"));
+    }
+
+    // --- getBatchStats ---
+
+    @Test
+    public void givenBatchEvents_whenGetBatchStats_thenCountersReflectInsertsAndStatusChanges() {
+        LocalDateTime end = LocalDateTime.now().minusDays(1);
+        BatchSnapshot running = new BatchSnapshot(UUID.randomUUID(), "IN_PROGRESS", end.minusHours(2), null,
+                "B-1", "PO-1", "Mix");
+        BatchSnapshot aborted = new BatchSnapshot(running.batchId(), "ABORTED", end.minusHours(2), end,
+                "B-1", "PO-1", "Mix");
+        BatchSnapshot old = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", end.minusDays(30).minusHours(4),
+                end.minusDays(30), "B-2", "PO-2", "Mix");
+
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, running));
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, old));
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(running, aborted));
+
+        BatchStats stats = service.getBatchStats();
+
+        Assertions.assertEquals(2, stats.totalBatches());
+        Assertions.assertEquals(1, stats.batchesThisWeek());
+        Assertions.assertEquals(1, stats.failedBatchesThisWeek());
+        Assertions.assertEquals(50.0, stats.successRate());
+        Assertions.assertEquals(3.0, stats.avgBatchDuration());
+        verify(batchRepository, never()).findAll();
+    }
+
+    @Test
+    public void givenDeletedBatch_whenGetBatchStats_thenBatchNoLongerCounted() {
+        BatchSnapshot batch = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B-3", "PO-3", "Mix");
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, batch));
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(batch, null));
+
+        BatchStats stats = service.getBatchStats();
+
+        Assertions.assertEquals(0, stats.totalBatches());
+        Assertions.assertEquals(0.0, stats.successRate());
+    }
+
+    @Test
+    public void givenInsertCommittedDuringReseed_whenSeed_thenStatsStayWholeAndKeepTheInsert() {
+        BatchSnapshot existing = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B-4", "PO-4", "Mix");
+        BatchSnapshot external = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B-5", "PO-5", "Mix");
+        BatchSnapshot committed = new BatchSnapshot(UUID.randomUUID(), "FAILED", null, null, "B-6", "PO-6", "Mix");
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, existing));
+        Mockito.when(batchRepository.streamSnapshots()).thenAnswer(invocation -> Stream.of(existing, external).peek(s -> {
+            Assertions.assertEquals(1, service.getBatchStats().totalBatches());
+            if (s == external) {
+                batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, committed));
+            }
+        }));
+
+        batchKpiAggregator.seed();
+        BatchStats stats = service.getBatchStats();
+
+        Assertions.assertEquals(3, stats.totalBatches());
+        Assertions.assertEquals(66.67, stats.successRate());
+    }
+
+    @Test
+    public void givenChangesCommittedBeforeAndAfterTheScanReadsThem_whenSeed_thenCountEachOnce() {
+        BatchSnapshot existing = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B-7", "PO-7", "Mix");
+        BatchSnapshot failed = new BatchSnapshot(existing.batchId(), "FAILED", null, null, "B-7", "PO-7", "Mix");
+        BatchSnapshot inserted = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B-8", "PO-8", "Mix");
+        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, existing));
+        Mockito.when(batchRepository.streamSnapshots()).thenAnswer(invocation -> {
+            // Committed before the scan's snapshot, so the scan sees it as well
+            batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, inserted));
+            return Stream.of(existing, inserted).peek(s -> {
+                if (s == existing) {
+                    // Committed after the scan read the row
+                    batchKpiAggregator.onBatchChanged(new BatchChangedEvent(existing, failed));
+                }
+            });
+        });
+        Mockito.when(batchRepository.findSnapshotsByIds(any())).thenAnswer(invocation -> inSnapshot(
+                List.of(existing, inserted), invocation.getArgument(0)));
+
+        batchKpiAggregator.seed();
+        BatchStats stats = service.getBatchStats();
+
+        Assertions.assertEquals(2, stats.totalBatches());
+        Assertions.assertEquals(50.0, stats.successRate());
+    }
+
+    @Test
+    public void givenConcurrentInsertsDuringReseeds_whenSeed_thenEveryInsertCountedOnce() throws Exception {
+        // The table: a row is committed before its event is published, as after a real commit
+        Queue<BatchSnapshot> table = new ConcurrentLinkedQueue<>();
+        AtomicReference<List<BatchSnapshot>> snapshot = new AtomicReference<>();
+        Mockito.when(batchRepository.streamSnapshots()).thenAnswer(invocation -> {
+            snapshot.set(new ArrayList<>(table));
+            return snapshot.get().stream();
+        });
+        Mockito.when(batchRepository.findSnapshotsByIds(any())).thenAnswer(invocation -> inSnapshot(
+                snapshot.get(), invocation.getArgument(0)));
+        int threads = 4;
+        int perThread = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        BatchSnapshot batch = new BatchSnapshot(UUID.randomUUID(), "COMPLETED", null, null, "B", "PO", "Mix");
+                        table.add(batch);
+                        batchKpiAggregator.onBatchChanged(new BatchChangedEvent(null, batch));
+                    }
+                }));
+            }
+            while (writers.stream().anyMatch(writer -> !writer.isDone())) {
+                batchKpiAggregator.seed();
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(threads * perThread, service.getBatchStats().totalBatches());
+    }
+
+    // What the seed's repeatable-read transaction sees of the given batches
+    private static List<BatchSnapshot> inSnapshot(List<BatchSnapshot> snapshot, Collection<UUID> batchIds) {
+        return snapshot.stream().filter(batch -> batchIds.contains(batch.batchId())).toList();
+    }
+}
@@ -0,0 +1,46 @@
+package be.ucll.unit.service;
+
+import be.ucll.model.Batch;
+import be.ucll.service.BatchCsvColumn;
+import be.ucll.service.CSVService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public class CSVServiceTest {
+
+    private final CSVService service = new CSVService(null, null);
+
+    @Test
+    public void givenBatches_whenWriteCsv_thenWritesHeaderAndOneRowPerBatch() throws Exception {
+        Batch batch = new Batch("B-1", "PO-1", "RCP-1", null, LocalDateTime.of(2024, 3, 1, 6, 30), null, null,
+                "COMPLETED", 7L, "Mix");
+        batch.setBatchId(UUID.fromString("00000000-0000-0000-0000-000000000001"));
+        StringWriter writer = new StringWriter();
+
+        long rows = service.writeCsv(List.of(batch).iterator(),
+                List.of(BatchCsvColumn.BATCH_ID, BatchCsvColumn.ACTUAL_START_TIME, BatchCsvColumn.PLANNED_END_TIME,
+                        BatchCsvColumn.INTERNAL_ID),
+                writer);
+
+        Assertions.assertEquals(1, rows);
+        Assertions.assertEquals("batch_id,actual_start_time,planned_end_time,internal_id\r\n"
+                + "00000000-0000-0000-0000-000000000001,2024-03-01T06:30,,7\r\n", writer.toString());
+    }
+
+    @Test
+    public void givenFieldWithSeparatorsAndQuotes_whenWriteCsv_thenFieldIsQuoted() throws Exception {
+        Batch batch = new Batch("B,1", "PO \"A\"", "RCP\n1", null, null, null, null, "PLANNED", null, null);
+        StringWriter writer = new StringWriter();
+
+        service.writeCsv(List.of(batch).iterator(),
+                List.of(BatchCsvColumn.BATCH_NUMBER, BatchCsvColumn.PRODUCTION_ORDER_NUMBER, BatchCsvColumn.RECIPE_ID),
+                writer);
+
+        Assertions.assertTrue(writer.toString().endsWith("\"B,1\",\"PO \"\"A\"\"\",\"RCP\n1\"\r\n"));
+    }
+}
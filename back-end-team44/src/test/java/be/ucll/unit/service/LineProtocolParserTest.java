@@ -0,0 +1,78 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.sensor.LineProtocolParser;
+import be.ucll.service.sensor.SensorReading;
+import be.ucll.service.sensor.SensorSeriesKey;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class LineProtocolParserTest {
+
+    private final LineProtocolParser parser = new LineProtocolParser("sensor_data", TimeUnit.NANOSECONDS);
+    private final List<SensorReading> readings = new ArrayList<>();
+
+    @Test
+    public void givenLineWithMetricTag_whenParse_thenReadValueFieldWithEscapedTags() {
+        LineProtocolParser.Result result = parse("sensor_data,equipment_name=Mixer\\ 1,equipment_type=mixer,"
+                + "metric=temperature,type=PT100 status=\"ok, fine\",value=21.5 1700000000123000000\r");
+
+        Assertions.assertEquals(LineProtocolParser.Result.POINTS, result);
+        Assertions.assertEquals(List.of(SensorReading.of(
+                new SensorSeriesKey("Mixer 1", "mixer", "temperature", "PT100"), 1_700_000_000_123L, 21.5)), readings);
+    }
+
+    @Test
+    public void givenLineWithoutMetricTag_whenParse_thenEveryNumericFieldIsASeries() {
+        parse("sensor_data,equipment_id=EQ-7 temperature=-1.25e2,pressure=3i,running=true 1000000000");
+        parse("sensor_data,equipment_id=EQ-7 temperature=0.5 2000000000");
+
+        Assertions.assertEquals(3, readings.size());
+        Assertions.assertEquals(new SensorSeriesKey("EQ-7", null, "temperature", null), readings.get(0).series());
+        Assertions.assertEquals(-125.0, readings.get(0).value());
+        Assertions.assertEquals(3.0, readings.get(1).value());
+        Assertions.assertEquals(1000, readings.get(1).time().toEpochMilli());
+        // The cached key is reused for a series seen before
+        Assertions.assertSame(readings.get(0).series().metric(), readings.get(2).series().metric());
+    }
+
+    @Test
+    public void givenInvalidLines_whenParse_thenReportWhy() {
+        Assertions.assertEquals(LineProtocolParser.Result.EMPTY, parse("   "));
+        Assertions.assertEquals(LineProtocolParser.Result.IGNORED, parse("cpu,host=a value=1"));
+        Assertions.assertEquals(LineProtocolParser.Result.MALFORMED, parse("sensor_data,metric=x value=1"));
+        Assertions.assertEquals(LineProtocolParser.Result.MALFORMED, parse("sensor_data,equipment_id=a value=abc"));
+        Assertions.assertEquals(LineProtocolParser.Result.MALFORMED, parse("sensor_data,equipment_id=a value=1 12x"));
+        Assertions.assertTrue(readings.isEmpty());
+    }
+
+    @Test
+    public void givenMoreSeriesThanCacheHolds_whenParse_thenKeysStayCorrectAndRecentOnesAreReused() {
+        LineProtocolParser small = new LineProtocolParser("sensor_data", TimeUnit.NANOSECONDS, 16);
+        for (int i = 0; i < 200; i++) {
+            parse(small, "sensor_data,equipment_id=EQ-" + i + ",metric=temperature value=" + i + " 1000000000");
+        }
+        parse(small, "sensor_data,equipment_id=EQ-199,metric=temperature value=1 2000000000");
+
+        for (int i = 0; i < 200; i++) {
+            Assertions.assertEquals(new SensorSeriesKey("EQ-" + i, null, "temperature", null), readings.get(i).series());
+        }
+        Assertions.assertSame(readings.get(199).equipmentName(), readings.get(200).equipmentName());
+    }
+
+    private LineProtocolParser.Result parse(String line) {
+        return parse(parser, line);
+    }
+
+    private LineProtocolParser.Result parse(LineProtocolParser parser, String line) {
+        byte[] bytes = ("xx" + line).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        return parser.parse(buffer, 2, bytes.length,
+                (series, time, value) -> readings.add(SensorReading.of(series, time, value)));
+    }
+}
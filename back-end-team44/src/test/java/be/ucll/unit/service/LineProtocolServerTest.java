@@ -0,0 +1,103 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.sensor.LineProtocolServer;
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesKey;
+import be.ucll.service.sensor.SensorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+public class LineProtocolServerTest {
+
+    @Test
+    public void givenLinesOverTcpAndUdp_whenReceived_thenWriteToStoreAndCountMalformed() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SensorStore store = new SensorStore(registry, 100, 100);
+        // Tiny buffers, so lines are split across reads
+        LineProtocolServer server = new LineProtocolServer(store, registry, 0, 0, "sensor_data", "ms", 2, 16, 128, 50, 100);
+        server.start();
+        try {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+                OutputStream out = socket.getOutputStream();
+                StringBuilder lines = new StringBuilder();
+                for (int i = 1; i <= 200; i++) {
+                    lines.append("sensor_data,equipment_name=Mixer,metric=temperature value=").append(i).append(' ')
+                            .append(i).append('\n');
+                }
+                lines.append("sensor_data,equipment_name=Mixer,metric=pressure value=nope 1\n");
+                lines.append("sensor_data,equipment_name=Mixer,metric=speed value=7 1");
+                out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            byte[] datagram = "sensor_data,equipment_name=Oven,metric=temperature value=180 5\n".getBytes(StandardCharsets.UTF_8);
+            try (DatagramSocket socket = new DatagramSocket()) {
+                socket.send(new DatagramPacket(datagram, datagram.length, InetAddress.getLoopbackAddress(),
+                        server.getUdpPort()));
+            }
+
+            for (int i = 0; i < 200 && store.latest(SensorSeriesFilter.none()).size() < 3; i++) {
+                Thread.sleep(10);
+            }
+            for (int i = 0; i < 200 && registry.counter("sensors.ingest.points").count() < 202; i++) {
+                Thread.sleep(10);
+            }
+
+            Assertions.assertEquals(202, registry.counter("sensors.ingest.points").count());
+            Assertions.assertEquals(1, registry.counter("sensors.ingest.malformed").count());
+            Assertions.assertEquals(100, store.query(new SensorSeriesFilter("Mixer", null, "temperature", null),
+                    null, null, 1000).get(0).timestamps().length);
+            Assertions.assertEquals(3, store.latest(SensorSeriesFilter.none()).size());
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void givenStoreFailsForOneSeries_whenReceived_thenCountFailuresAndKeepWriting() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SensorStore store = new SensorStore(registry, 100, 100) {
+            @Override
+            public boolean write(SensorSeriesKey key, long timeMillis, double value) {
+                if ("Broken".equals(key.equipmentName())) {
+                    throw new UncheckedIOException(new IOException("Chunk file full"));
+                }
+                return super.write(key, timeMillis, value);
+            }
+        };
+        // One writer, so the failing and the healthy series share a partition
+        LineProtocolServer server = new LineProtocolServer(store, registry, 0, -1, "sensor_data", "ms", 1, 16, 128, 50, 100);
+        server.start();
+        try {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getTcpPort())) {
+                StringBuilder lines = new StringBuilder();
+                for (int i = 1; i <= 10; i++) {
+                    lines.append("sensor_data,equipment_name=Broken,metric=temperature value=").append(i).append(' ')
+                            .append(i).append('\n');
+                    lines.append("sensor_data,equipment_name=Mixer,metric=temperature value=").append(i).append(' ')
+                            .append(i).append('\n');
+                }
+                socket.getOutputStream().write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            SensorSeriesFilter mixer = new SensorSeriesFilter("Mixer", null, "temperature", null);
+            for (int i = 0; i < 200 && (store.query(mixer, null, null, 1000).isEmpty()
+                    || store.query(mixer, null, null, 1000).get(0).timestamps().length < 10); i++) {
+                Thread.sleep(10);
+            }
+
+            Assertions.assertEquals(10, store.query(mixer, null, null, 1000).get(0).timestamps().length);
+            Assertions.assertEquals(10, registry.counter("sensors.ingest.failed").count());
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.auth.LoginRateLimiter;
+import be.ucll.service.auth.LoginThrottledException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class LoginRateLimiterTest {
+
+    @Test
+    public void givenBucketExhausted_whenAcquire_thenThrottledWithRetryAfter() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 1, 100);
+
+        limiter.acquire("john.doe@ucll.be", "10.0.0.1");
+        limiter.acquire("John.Doe@ucll.be", "10.0.0.2");
+
+        LoginThrottledException exception = Assertions.assertThrows(LoginThrottledException.class,
+                () -> limiter.acquire("john.doe@ucll.be", "10.0.0.3"));
+        Assertions.assertTrue(exception.getRetryAfterSeconds() >= 1);
+        // other users on a fresh address are unaffected
+        limiter.acquire("jane.smith@ucll.be", "10.0.0.4");
+    }
+}
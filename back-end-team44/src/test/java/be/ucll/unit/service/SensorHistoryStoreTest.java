@@ -0,0 +1,117 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.sensor.SensorHistoryStore;
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesKey;
+import be.ucll.service.sensor.SensorSeriesReadings;
+import be.ucll.service.sensor.SensorStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+public class SensorHistoryStoreTest {
+
+    private static final SensorSeriesKey MIXER_TEMPERATURE = new SensorSeriesKey("Mixer 1", "mixer", "temperature", null);
+    private static final SensorSeriesKey OVEN_TEMPERATURE = new SensorSeriesKey("Oven\t2", "oven", "temperature", "PT100");
+    private static final long DAY = 86_400_000L;
+
+    @TempDir
+    Path directory;
+
+    private SensorHistoryStore open() throws Exception {
+        SensorHistoryStore store = new SensorHistoryStore(directory.toString(), 16, 60_000);
+        store.open();
+        return store;
+    }
+
+    @Test
+    public void givenIrregularReadings_whenQuery_thenReturnExactPointsFromChunksAndOpenChunk() throws Exception {
+        SensorHistoryStore store = open();
+        long[] times = new long[100];
+        double[] values = new double[100];
+        long time = 1_700_000_000_000L;
+        for (int i = 0; i < 100; i++) {
+            time += 1000 + (i % 7 == 0 ? 37 : 0);
+            times[i] = time;
+            values[i] = i % 5 == 0 ? 20.5 : 20.5 + i * 0.013;
+            store.append(MIXER_TEMPERATURE, times[i], values[i]);
+        }
+
+        SensorSeriesReadings readings = store.query(SensorSeriesFilter.none(), null, null, 1000).get(0);
+        SensorSeriesReadings newest = store.query(SensorSeriesFilter.none(), null, Instant.ofEpochMilli(times[50]), 10).get(0);
+
+        Assertions.assertArrayEquals(times, readings.timestamps());
+        Assertions.assertArrayEquals(values, readings.values());
+        SensorSeriesReadings wrapped = store.query(SensorSeriesFilter.none(), null, Instant.ofEpochMilli(times[50]), 7).get(0);
+        Assertions.assertEquals(10, newest.timestamps().length);
+        Assertions.assertEquals(times[49], newest.timestamps()[9]);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(times, 43, 50), wrapped.timestamps());
+        Assertions.assertArrayEquals(Arrays.copyOfRange(values, 43, 50), wrapped.values());
+        store.close();
+    }
+
+    @Test
+    public void givenClosedStore_whenReopen_thenSeriesAndReadingsAreRecovered() throws Exception {
+        SensorHistoryStore store = open();
+        for (int i = 0; i < 40; i++) {
+            store.append(MIXER_TEMPERATURE, i * 1000L, i);
+            store.append(OVEN_TEMPERATURE, DAY + i * 1000L, 180 + i);
+        }
+        store.close();
+
+        SensorHistoryStore reopened = open();
+        List<SensorSeriesReadings> readings = reopened.query(SensorSeriesFilter.none(), null, null, 1000);
+
+        Assertions.assertEquals(2, readings.size());
+        Assertions.assertEquals(MIXER_TEMPERATURE, readings.get(0).series());
+        Assertions.assertEquals(OVEN_TEMPERATURE, readings.get(1).series());
+        Assertions.assertEquals(40, readings.get(1).timestamps().length);
+        Assertions.assertEquals(219, readings.get(1).values()[39]);
+        reopened.close();
+    }
+
+    @Test
+    public void givenReadingsAcrossChunks_whenStatistics_thenMatchDirectComputation() throws Exception {
+        SensorHistoryStore store = open();
+        for (int i = 0; i < 50; i++) {
+            store.append(MIXER_TEMPERATURE, i * 1000L, i);
+        }
+
+        SensorStatistics all = store.statistics(SensorSeriesFilter.none(), null, null, new double[0]).get(0);
+        SensorStatistics part = store.statistics(SensorSeriesFilter.none(), Instant.ofEpochMilli(10_000),
+                Instant.ofEpochMilli(20_000), new double[]{0.5}).get(0);
+
+        Assertions.assertEquals(50, all.count());
+        Assertions.assertEquals(0, all.min());
+        Assertions.assertEquals(49, all.max());
+        Assertions.assertEquals(24.5, all.mean(), 1e-9);
+        Assertions.assertEquals(Math.sqrt((50 * 50 - 1) / 12.0), all.standardDeviation(), 1e-9);
+        Assertions.assertEquals(10, part.count());
+        Assertions.assertEquals(14.5, part.mean(), 1e-9);
+        Assertions.assertEquals(Instant.ofEpochMilli(19_000), part.lastTime());
+        Assertions.assertEquals(14, part.percentiles().get("p50"), 14 * 0.01);
+        store.close();
+    }
+
+    @Test
+    public void givenLargeValuesWithSmallSpread_whenStatisticsFromChunkHeaders_thenStandardDeviationIsAccurate() throws Exception {
+        SensorHistoryStore store = open();
+        for (int i = 0; i < 1000; i++) {
+            store.append(MIXER_TEMPERATURE, i * 1000L, 1e9 + (i % 2 == 0 ? 0.5 : -0.5));
+        }
+        store.close();
+
+        SensorHistoryStore reopened = open();
+        SensorStatistics statistics = reopened.statistics(SensorSeriesFilter.none(), null, null, new double[0]).get(0);
+
+        Assertions.assertEquals(1000, statistics.count());
+        Assertions.assertEquals(1e9, statistics.mean(), 1e-6);
+        Assertions.assertEquals(0.5, statistics.standardDeviation(), 1e-6);
+        reopened.close();
+    }
+}
@@ -0,0 +1,114 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesKey;
+import be.ucll.service.sensor.SensorStatistics;
+import be.ucll.service.sensor.SensorStatisticsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+
+public class SensorStatisticsServiceTest {
+
+    private static final SensorSeriesKey MIXER_TEMPERATURE = new SensorSeriesKey("Mixer 1", "mixer", "temperature", "PT100");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SensorStatisticsService service = new SensorStatisticsService(registry, 60_000, 3_600_000,
+            3_600_000, 3_600_000, 10);
+
+    @Test
+    public void givenReadingsOverManyBuckets_whenStatistics_thenMatchExactValuesAndQuantilesWithinAccuracy() {
+        Random random = new Random(42);
+        double[] values = new double[6000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 60 + random.nextGaussian() * 5;
+            service.record(MIXER_TEMPERATURE, i * 500L, values[i]);
+        }
+
+        SensorStatistics statistics = service.statistics(SensorSeriesFilter.none(), null, null, QUANTILES).get(0);
+
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double variance = Arrays.stream(values).map(v -> (v - mean) * (v - mean)).sum() / values.length;
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Assertions.assertEquals(values.length, statistics.count());
+        Assertions.assertEquals(sorted[0], statistics.min());
+        Assertions.assertEquals(sorted[sorted.length - 1], statistics.max());
+        Assertions.assertEquals(mean, statistics.mean(), 1e-9);
+        Assertions.assertEquals(Math.sqrt(variance), statistics.standardDeviation(), 1e-9);
+        Assertions.assertEquals(sorted[(int) (0.5 * (sorted.length - 1))], statistics.percentiles().get("p50"), sorted[2999] * 0.01);
+        Assertions.assertEquals(sorted[(int) (0.99 * (sorted.length - 1))], statistics.percentiles().get("p99"), sorted[5939] * 0.01);
+        Assertions.assertEquals(3, statistics.percentiles().size());
+    }
+
+    @Test
+    public void givenWindow_whenStatistics_thenMergeOnlyItsBuckets() {
+        for (int i = 0; i < 600; i++) {
+            service.record(MIXER_TEMPERATURE, i * 1000L, i < 300 ? 10 : 20);
+        }
+
+        SensorStatistics window = service.statistics(SensorSeriesFilter.none(), Instant.ofEpochMilli(300_000),
+                Instant.ofEpochMilli(420_000), QUANTILES).get(0);
+
+        Assertions.assertEquals(120, window.count());
+        Assertions.assertEquals(20, window.mean());
+        Assertions.assertEquals(0, window.standardDeviation());
+        Assertions.assertEquals(20, window.percentiles().get("p50"));
+        Assertions.assertEquals(Instant.ofEpochMilli(300_000), window.firstTime());
+    }
+
+    @Test
+    public void givenLargeValuesWithSmallSpread_whenStatistics_thenStandardDeviationIsAccurate() {
+        for (int i = 0; i < 1000; i++) {
+            service.record(MIXER_TEMPERATURE, i * 1000L, 1e9 + (i % 2 == 0 ? 0.5 : -0.5));
+        }
+
+        SensorStatistics statistics = service.statistics(SensorSeriesFilter.none(), null, null, new double[0]).get(0);
+
+        Assertions.assertEquals(1e9, statistics.mean(), 1e-6);
+        Assertions.assertEquals(0.5, statistics.standardDeviation(), 1e-6);
+        Assertions.assertTrue(statistics.percentiles().isEmpty());
+    }
+
+    @Test
+    public void givenPointsOlderThanRetention_whenStatistics_thenOnlyRetainedBucketsCount() {
+        service.record(MIXER_TEMPERATURE, 0, 1);
+        service.record(MIXER_TEMPERATURE, 7_200_000, 2);
+        service.record(MIXER_TEMPERATURE, 30_000, 3);
+
+        SensorStatistics statistics = service.statistics(SensorSeriesFilter.none(), null, null, QUANTILES).get(0);
+
+        Assertions.assertEquals(1, statistics.count());
+        Assertions.assertEquals(2, statistics.mean());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> service.statistics(SensorSeriesFilter.none(), null, null, new double[]{1.5}));
+    }
+
+    @Test
+    public void givenWindowOlderThanFineBuckets_whenStatistics_thenUseHourlyRollupsAndCapSeries() {
+        SensorStatisticsService daily = new SensorStatisticsService(registry, 60_000, 3_600_000, 3_600_000,
+                86_400_000, 2);
+        for (int minute = 0; minute < 180; minute++) {
+            daily.record(MIXER_TEMPERATURE, minute * 60_000L, minute / 60);
+        }
+        daily.record(new SensorSeriesKey("Oven 2", "oven", "temperature", "PT100"), 0, 180);
+        daily.record(new SensorSeriesKey("Oven 3", "oven", "temperature", "PT100"), 0, 180);
+
+        SensorStatistics older = daily.statistics(new SensorSeriesFilter("Mixer 1", null, null, null),
+                Instant.ofEpochMilli(30 * 60_000L), Instant.ofEpochMilli(90 * 60_000L), QUANTILES).get(0);
+        SensorStatistics recent = daily.statistics(new SensorSeriesFilter("Mixer 1", null, null, null),
+                Instant.ofEpochMilli(150 * 60_000L), null, QUANTILES).get(0);
+
+        Assertions.assertEquals(120, older.count());
+        Assertions.assertEquals(0.5, older.mean());
+        Assertions.assertEquals(30, recent.count());
+        Assertions.assertEquals(2, recent.mean());
+        Assertions.assertEquals(2, daily.statistics(SensorSeriesFilter.none(), null, null, QUANTILES).size());
+        Assertions.assertEquals(1.0, registry.counter("sensors.statistics.rejected-series").count());
+    }
+}
@@ -0,0 +1,94 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.sensor.SensorReading;
+import be.ucll.service.sensor.SensorSeriesFilter;
+import be.ucll.service.sensor.SensorSeriesKey;
+import be.ucll.service.sensor.SensorSeriesReadings;
+import be.ucll.service.sensor.SensorStatisticsService;
+import be.ucll.service.sensor.SensorStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+public class SensorStoreTest {
+
+    private static final SensorSeriesKey MIXER_TEMPERATURE = new SensorSeriesKey("Mixer 1", "mixer", "temperature", "PT100");
+    private static final SensorSeriesKey MIXER_PRESSURE = new SensorSeriesKey("Mixer 1", "mixer", "pressure", "PX");
+    private static final SensorSeriesKey OVEN_TEMPERATURE = new SensorSeriesKey("Oven 2", "oven", "temperature", "PT100");
+
+    private final SensorStore store = new SensorStore(new SimpleMeterRegistry(), 4, 3);
+
+    @Test
+    public void givenMoreReadingsThanCapacity_whenQueryRange_thenReturnNewestPointsInRangeInOrder() {
+        for (int i = 1; i <= 6; i++) {
+            store.write(MIXER_TEMPERATURE, i * 1000L, 20 + i);
+        }
+
+        List<SensorSeriesReadings> all = store.query(SensorSeriesFilter.none(), null, null, 100);
+        List<SensorSeriesReadings> range = store.query(new SensorSeriesFilter("Mixer 1", null, "temperature", null),
+                Instant.ofEpochMilli(3000), Instant.ofEpochMilli(6000), 2);
+
+        Assertions.assertArrayEquals(new long[]{3000, 4000, 5000, 6000}, all.get(0).timestamps());
+        Assertions.assertArrayEquals(new long[]{4000, 5000}, range.get(0).timestamps());
+        Assertions.assertArrayEquals(new double[]{24, 25}, range.get(0).values());
+    }
+
+    @Test
+    public void givenSeveralSeries_whenLatest_thenReturnNewestPointOfEachMatchingSeries() {
+        store.write(MIXER_TEMPERATURE, 1000, 21);
+        store.write(MIXER_TEMPERATURE, 2000, 22);
+        store.write(MIXER_PRESSURE, 1500, 1.2);
+        store.write(OVEN_TEMPERATURE, 1000, 180);
+
+        List<SensorReading> mixer = store.latest(new SensorSeriesFilter("Mixer 1", null, null, null));
+        List<SensorReading> temperatures = store.latest(new SensorSeriesFilter(null, null, "temperature", null));
+
+        Assertions.assertEquals(List.of(SensorReading.of(MIXER_PRESSURE, 1500, 1.2),
+                SensorReading.of(MIXER_TEMPERATURE, 2000, 22)), mixer);
+        Assertions.assertEquals(2, temperatures.size());
+    }
+
+    @Test
+    public void givenOlderPointOrFullStore_whenWrite_thenDropIt() {
+        store.write(MIXER_TEMPERATURE, 2000, 22);
+        store.write(MIXER_PRESSURE, 2000, 1.0);
+        store.write(OVEN_TEMPERATURE, 2000, 180);
+
+        Assertions.assertFalse(store.write(MIXER_TEMPERATURE, 1000, 21));
+        Assertions.assertTrue(store.write(MIXER_TEMPERATURE, 2000, 23));
+        Assertions.assertFalse(store.write(new SensorSeriesKey("Oven 3", "oven", "temperature", "PT100"), 2000, 1));
+        Assertions.assertEquals(23, store.latest(SensorSeriesFilter.none()).get(1).value());
+    }
+
+    @Test
+    public void givenRingGrowingPastItsInitialSize_whenQuery_thenKeepTheNewestCapacityPoints() {
+        SensorStore large = new SensorStore(new SimpleMeterRegistry(), 200, 3);
+        for (int i = 1; i <= 500; i++) {
+            large.write(MIXER_TEMPERATURE, i, i);
+        }
+
+        long[] timestamps = large.query(SensorSeriesFilter.none(), null, null, 1000).get(0).timestamps();
+
+        Assertions.assertEquals(200, timestamps.length);
+        Assertions.assertEquals(301, timestamps[0]);
+        Assertions.assertEquals(500, timestamps[199]);
+    }
+
+    @Test
+    public void givenPointAtTheNewestTimestamp_whenWrite_thenReplaceItAndCountItOnceInStatistics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SensorStatisticsService statistics = new SensorStatisticsService(registry, 60_000, 3_600_000,
+                3_600_000, 3_600_000, 10);
+        store.setStatistics(statistics);
+
+        store.write(MIXER_TEMPERATURE, 1000, 21);
+        Assertions.assertTrue(store.write(MIXER_TEMPERATURE, 1000, 22));
+
+        Assertions.assertEquals(22, store.latest(SensorSeriesFilter.none()).get(0).value());
+        Assertions.assertEquals(1, statistics.statistics(SensorSeriesFilter.none(), null, null, new double[0])
+                .get(0).count());
+    }
+}
@@ -0,0 +1,34 @@
+package be.ucll.unit.service;
+
+import be.ucll.service.auth.TokenBlackListService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+public class TokenBlackListServiceTest {
+
+    private final TokenBlackListService service = new TokenBlackListService(null, 1000, 0.01);
+
+    @Test
+    public void givenRevokedToken_whenIsTokenBlacklisted_thenOnlyThatTokenIsRejected() {
+        service.blacklistToken("header.payload.signature", Instant.now().plus(Duration.ofHours(1)));
+
+        Assertions.assertTrue(service.isTokenBlacklisted("header.payload.signature"));
+        Assertions.assertFalse(service.isTokenBlacklisted("header.payload.other"));
+    }
+
+    @Test
+    public void givenTokenPastItsExpiry_whenEvictExpired_thenEntryIsDropped() {
+        Instant now = Instant.now();
+        service.blacklistToken("short-lived", now.plus(Duration.ofMinutes(5)));
+        service.blacklistToken("long-lived", now.plus(Duration.ofDays(10)));
+
+        service.evictExpired(now.plus(Duration.ofMinutes(7)));
+
+        Assertions.assertEquals(1, service.size());
+        Assertions.assertFalse(service.isTokenBlacklisted("short-lived"));
+        Assertions.assertTrue(service.isTokenBlacklisted("long-lived"));
+    }
+}
@@ -4,7 +4,11 @@ import be.ucll.model.User;
 import be.ucll.repository.UserRepository;
 import be.ucll.service.auth.AuthenticationService;
 import be.ucll.service.auth.LoginUserDto;
+import be.ucll.service.auth.TokenEpochService;
+import be.ucll.service.auth.UpdateProfileDto;
+import be.ucll.service.auth.UserPrincipalCache;
 import be.ucll.service.auth.UserRegisterDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.hibernate.service.spi.ServiceException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -24,6 +28,8 @@ public class UserServiceTest {
     private UserRepository userRepository;
     private PasswordEncoder passwordEncoder;
     private AuthenticationService authenticationService;
+    private UserPrincipalCache userPrincipalCache;
+    private TokenEpochService tokenEpochService;
     private UserService service;
 
     @BeforeEach
@@ -31,7 +37,10 @@ public class UserServiceTest {
         userRepository = Mockito.mock(UserRepository.class);
         passwordEncoder = Mockito.mock(PasswordEncoder.class);
         authenticationService = Mockito.mock(AuthenticationService.class);
-        service = new UserService(userRepository, passwordEncoder, authenticationService);
+        userPrincipalCache = new UserPrincipalCache(userRepository, new SimpleMeterRegistry(), 60_000, 100);
+        tokenEpochService = Mockito.mock(TokenEpochService.class);
+        service = new UserService(userRepository, passwordEncoder, authenticationService, userPrincipalCache,
+                tokenEpochService);
     }
 
     // --- getAllUsers ---
@@ -101,11 +110,12 @@ public class UserServiceTest {
 
         Mockito.when(userRepository.findByEmail(dto.getEmail())).thenReturn(mockUser);
         Mockito.when(passwordEncoder.matches(dto.getPassword(), mockUser.getPassword())).thenReturn(true);
-        Mockito.when(userRepository.findByEmail(dto.getEmail())).thenReturn(mockUser);
 
         User result = service.loginUser(dto);
 
-        verify(authenticationService, times(1)).login(dto, true);
+        verify(userRepository, times(1)).findByEmail(dto.getEmail());
+        verify(passwordEncoder, times(1)).matches(dto.getPassword(), mockUser.getPassword());
+        Mockito.verifyNoInteractions(authenticationService);
         Assertions.assertEquals("john.doe@ucll.be", result.getEmail());
     }
 
@@ -157,5 +167,54 @@ public class UserServiceTest {
 
         Assertions.assertEquals("Invalid email or password.", exception.getMessage());
     }
-}
 
+    // --- principal cache ---
+
+    @Test
+    public void givenCachedPrincipal_whenUpdateProfile_thenNextLookupReadsRepository() {
+        User user = new User("John Doe", "john.doe@ucll.be", "encodedPass");
+        Mockito.when(userRepository.findByEmail("john.doe@ucll.be")).thenReturn(user);
+        Mockito.when(userRepository.save(user)).thenReturn(user);
+
+        userPrincipalCache.load("john.doe@ucll.be");
+        userPrincipalCache.load("john.doe@ucll.be");
+        verify(userRepository, times(1)).findByEmail("john.doe@ucll.be");
+
+        UpdateProfileDto update = new UpdateProfileDto();
+        update.setName("John");
+        service.updateProfile("john.doe@ucll.be", update);
+        userPrincipalCache.load("john.doe@ucll.be");
+
+        verify(userRepository, times(3)).findByEmail("john.doe@ucll.be");
+    }
+
+    // --- logoutEverywhere ---
+
+    @Test
+    public void givenUser_whenLogoutEverywhere_thenTokenEpochIsBumped() {
+        service.logoutEverywhere("john.doe@ucll.be");
+
+        verify(tokenEpochService, times(1)).revokeAll("john.doe@ucll.be");
+    }
+
+    // --- loginUser (outdated hash cost) ---
+
+    @Test
+    public void givenHashWithOutdatedCost_whenLoginUser_thenPasswordIsRehashed() {
+        LoginUserDto dto = new LoginUserDto();
+        dto.setEmail("john.doe@ucll.be");
+        dto.setPassword("john123");
+        User mockUser = new User("John Doe", "john.doe@ucll.be", "$2a$08$oldHash");
+
+        Mockito.when(userRepository.findByEmail(dto.getEmail())).thenReturn(mockUser);
+        Mockito.when(passwordEncoder.matches("john123", "$2a$08$oldHash")).thenReturn(true);
+        Mockito.when(passwordEncoder.upgradeEncoding("$2a$08$oldHash")).thenReturn(true);
+        Mockito.when(passwordEncoder.encode("john123")).thenReturn("$2a$12$newHash");
+        Mockito.when(userRepository.save(mockUser)).thenReturn(mockUser);
+
+        User result = service.loginUser(dto);
+
+        Assertions.assertEquals("$2a$12$newHash", result.getPassword());
+        verify(userRepository, times(1)).save(mockUser);
+    }
+}